@@ -1,6 +1,7 @@
 module simulation.software.codebase.sweepgenerationsoftware {
     requires javafx.controls;
     requires javafx.fxml;
+    requires static jdk.incubator.vector;
 
 
     opens simulation.software.codebase to javafx.fxml;
@@ -0,0 +1,130 @@
+package simulation.software.codebase;
+
+// Chirp-Z transform evaluating the DFT of N samples on an arbitrary grid of
+// M equally spaced frequencies, typically a narrow band around a peak. Like
+// FFTPlan's Bluestein kernel it rewrites the sum as a convolution with a
+// chirp, so one evaluation costs two power-of-2 FFTs of size >= N + M - 1
+// instead of a zero-padded FFT long enough to reach the same bin spacing.
+// Immutable once built; transform() allocates its own buffers, so one
+// instance can serve several threads.
+public class ChirpZTransform {
+    private final int inputLength;
+    private final int binCount;
+    private final double sampleRate;
+    private final double startFrequency;
+    private final double binSpacing;
+
+    // x[n] is multiplied by exp(-i*(2*pi*f0*n/fs + pi*df*n^2/fs)) before the convolution
+    private final double[] inputChirpCos;
+    private final double[] inputChirpSin;
+
+    // Bin k is multiplied by exp(-i*pi*df*k^2/fs) after the convolution
+    private final double[] outputChirpCos;
+    private final double[] outputChirpSin;
+
+    // Spectrum of the filter exp(i*pi*df*m^2/fs), m in (-N, M), wrapped for circular convolution
+    private final double[] filterSpectrumReal;
+    private final double[] filterSpectrumImag;
+    private final FFTPlan convolutionPlan;
+
+    public ChirpZTransform(int inputLength, double sampleRate, double startFrequency,
+                           double binSpacing, int binCount) {
+        if (inputLength < 1 || binCount < 1 || sampleRate <= 0 || binSpacing < 0) {
+            throw new IllegalArgumentException("Invalid chirp-Z configuration");
+        }
+        this.inputLength = inputLength;
+        this.binCount = binCount;
+        this.sampleRate = sampleRate;
+        this.startFrequency = startFrequency;
+        this.binSpacing = binSpacing;
+
+        double startStep = 2 * Math.PI * startFrequency / sampleRate;
+        double chirpRate = Math.PI * binSpacing / sampleRate;
+
+        inputChirpCos = new double[inputLength];
+        inputChirpSin = new double[inputLength];
+        for (int n = 0; n < inputLength; n++) {
+            double angle = -(startStep * n + chirpRate * ((double) n * n));
+            inputChirpCos[n] = Math.cos(angle);
+            inputChirpSin[n] = Math.sin(angle);
+        }
+
+        outputChirpCos = new double[binCount];
+        outputChirpSin = new double[binCount];
+        for (int k = 0; k < binCount; k++) {
+            double angle = -chirpRate * ((double) k * k);
+            outputChirpCos[k] = Math.cos(angle);
+            outputChirpSin[k] = Math.sin(angle);
+        }
+
+        int span = inputLength + binCount - 1;
+        int m = Integer.bitCount(span) == 1 ? span : Integer.highestOneBit(span) << 1;
+        convolutionPlan = FFTPlan.forSize(m);
+        filterSpectrumReal = new double[m];
+        filterSpectrumImag = new double[m];
+        for (int k = 0; k < binCount; k++) {
+            double angle = chirpRate * ((double) k * k);
+            filterSpectrumReal[k] = Math.cos(angle);
+            filterSpectrumImag[k] = Math.sin(angle);
+        }
+        for (int n = 1; n < inputLength; n++) {
+            double angle = chirpRate * ((double) n * n);
+            filterSpectrumReal[m - n] = Math.cos(angle);
+            filterSpectrumImag[m - n] = Math.sin(angle);
+        }
+        convolutionPlan.transform(filterSpectrumReal, filterSpectrumImag);
+    }
+
+    public int getInputLength() {
+        return inputLength;
+    }
+
+    public int getBinCount() {
+        return binCount;
+    }
+
+    // Whether this transform was built for the given grid
+    public boolean matches(int inputLength, double sampleRate, double startFrequency,
+                           double binSpacing, int binCount) {
+        return this.inputLength == inputLength && this.sampleRate == sampleRate
+                && this.startFrequency == startFrequency && this.binSpacing == binSpacing
+                && this.binCount == binCount;
+    }
+
+    // Evaluates the grid for the first N samples of input; missing samples count as zero.
+    // Bins are scaled like FFTPlan output, so magnitudes compare directly.
+    public Spectrum transform(double[] input) {
+        int m = convolutionPlan.getSize();
+        int length = Math.min(input.length, inputLength);
+        double[] convReal = new double[m];
+        double[] convImag = new double[m];
+        for (int n = 0; n < length; n++) {
+            convReal[n] = input[n] * inputChirpCos[n];
+            convImag[n] = input[n] * inputChirpSin[n];
+        }
+        convolutionPlan.transform(convReal, convImag);
+
+        // Multiply by the filter spectrum and conjugate, so a forward FFT acts as the inverse
+        for (int k = 0; k < m; k++) {
+            double br = filterSpectrumReal[k];
+            double bi = filterSpectrumImag[k];
+            double cr = convReal[k] * br - convImag[k] * bi;
+            double ci = convReal[k] * bi + convImag[k] * br;
+            convReal[k] = cr;
+            convImag[k] = -ci;
+        }
+        convolutionPlan.transform(convReal, convImag);
+
+        // Undo the conjugation, scale by 1/m and apply the output chirp
+        double scale = 1.0 / m;
+        double[] real = new double[binCount];
+        double[] imag = new double[binCount];
+        for (int k = 0; k < binCount; k++) {
+            double cr = convReal[k] * scale;
+            double ci = -convImag[k] * scale;
+            real[k] = cr * outputChirpCos[k] - ci * outputChirpSin[k];
+            imag[k] = cr * outputChirpSin[k] + ci * outputChirpCos[k];
+        }
+        return new Spectrum(real, imag, binCount, binSpacing, startFrequency);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+
+// Cross-correlation of two equal-length signals through the frequency domain:
+// both are zero-padded to a power of 2 of at least length + maxLag samples,
+// transformed with a cached real FFT plan, multiplied as conj(A) * B and
+// transformed back, so a whole capture costs O(N log N) instead of the O(N^2)
+// of direct correlation. Padding keeps the lags linear rather than circular.
+// PHAT weighting divides each bin by its magnitude (GCC-PHAT), whitening the
+// cross-spectrum so the correlation peak stays sharp for tonal, swept or
+// reverberant signals. Buffers are allocated up front and reused, so repeated
+// estimates allocate nothing. Not thread-safe.
+public class CrossCorrelator {
+    public enum Weighting { NONE, PHAT }
+
+    // Bins below this fraction of the largest cross-spectrum magnitude are
+    // dropped by PHAT weighting rather than amplified to unit magnitude
+    private static final double PHAT_FLOOR = 1e-12;
+
+    private final int length;
+    private final int maxLag;
+    private final Weighting weighting;
+    private final int fftSize;
+    private final FFTPlan plan;
+
+    private final FFTWorkspace workspace = new FFTWorkspace();
+    private final double[] frame;
+    private final double[] referenceReal;
+    private final double[] referenceImag;
+    private final double[] signalReal;
+    private final double[] signalImag;
+    private final double[] correlation;
+
+    // Peak of the last estimate, see getPeakValue()
+    private double peakValue;
+
+    // Correlator for lags up to +-(length - 1)
+    public CrossCorrelator(int length, Weighting weighting) {
+        this(length, length - 1, weighting);
+    }
+
+    // Correlator for lags up to +-maxLag; bounding the lag to the expected
+    // latency shrinks the transforms for long captures
+    public CrossCorrelator(int length, int maxLag, Weighting weighting) {
+        if (length < 2 || maxLag < 1 || maxLag >= length || weighting == null) {
+            throw new IllegalArgumentException("Invalid correlator configuration");
+        }
+        this.length = length;
+        this.maxLag = maxLag;
+        this.weighting = weighting;
+
+        // Smallest power of 2 holding length + maxLag samples. One sample fewer would
+        // alias lag -maxLag onto lag length - 1 of the circular correlation.
+        int span = length + maxLag;
+        fftSize = Integer.bitCount(span) == 1 ? span : Integer.highestOneBit(span) << 1;
+        plan = FFTPlan.forSize(fftSize);
+
+        frame = new double[fftSize];
+        referenceReal = new double[fftSize / 2 + 1];
+        referenceImag = new double[fftSize / 2 + 1];
+        signalReal = new double[fftSize / 2 + 1];
+        signalImag = new double[fftSize / 2 + 1];
+        correlation = new double[fftSize];
+    }
+
+    // Delay in samples of signal relative to reference with PHAT weighting;
+    // positive when signal lags. NaN if either signal is too short.
+    public static double estimateDelay(double[] reference, double[] signal) {
+        if (reference == null || signal == null) {
+            return Double.NaN;
+        }
+        int n = Math.min(reference.length, signal.length);
+        if (n < 2) {
+            return Double.NaN;
+        }
+        return new CrossCorrelator(n, Weighting.PHAT).estimateDelay(reference, 0, signal, 0);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getMaxLag() {
+        return maxLag;
+    }
+
+    public Weighting getWeighting() {
+        return weighting;
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    // Correlation at lags -maxLag..maxLag (index lag + maxLag) of the first length
+    // samples of both signals: sum over n of reference[n] * signal[n + lag].
+    // Returns an empty array if either signal is shorter than length.
+    public double[] correlate(double[] reference, double[] signal) {
+        if (reference == null || signal == null || reference.length < length || signal.length < length) {
+            return new double[0];
+        }
+        double[] lags = new double[2 * maxLag + 1];
+        correlate(reference, 0, signal, 0);
+        for (int lag = -maxLag; lag <= maxLag; lag++) {
+            lags[lag + maxLag] = correlation[lag < 0 ? fftSize + lag : lag];
+        }
+        return lags;
+    }
+
+    // Delay in samples of signal relative to reference, from the correlation peak
+    // refined by a parabola through its neighbours; positive when signal lags.
+    // Reads length samples of each from the given offsets. NaN if either signal
+    // is too short.
+    public double estimateDelay(double[] reference, int referenceOffset, double[] signal, int signalOffset) {
+        if (reference == null || signal == null || referenceOffset < 0 || signalOffset < 0
+                || reference.length - referenceOffset < length || signal.length - signalOffset < length) {
+            return Double.NaN;
+        }
+        correlate(reference, referenceOffset, signal, signalOffset);
+
+        int peakLag = 0;
+        double peak = Double.NEGATIVE_INFINITY;
+        for (int lag = -maxLag; lag <= maxLag; lag++) {
+            double value = correlation[lag < 0 ? fftSize + lag : lag];
+            if (value > peak) {
+                peak = value;
+                peakLag = lag;
+            }
+        }
+
+        // Neighbours wrap circularly, which stays inside the padded correlation
+        double below = correlation[(peakLag - 1 + fftSize) % fftSize];
+        double above = correlation[(peakLag + 1 + fftSize) % fftSize];
+        double curvature = below - 2 * peak + above;
+        double offset = 0;
+        if (curvature < 0 && Math.abs(peakLag) < maxLag) {
+            offset = Math.max(-0.5, Math.min(0.5, 0.5 * (below - above) / curvature));
+        }
+        peakValue = peak - 0.25 * (below - above) * offset;
+        if (weighting == Weighting.NONE) {
+            double energy = Math.sqrt(energy(reference, referenceOffset) * energy(signal, signalOffset));
+            peakValue = energy > 0 ? peakValue / energy : 0;
+        }
+        return peakLag + offset;
+    }
+
+    // Height of the last estimate's peak: the normalised correlation coefficient
+    // (1 for identical shapes) without weighting, or the PHAT coherence (1 for a
+    // pure delay, near 0 for unrelated signals)
+    public double getPeakValue() {
+        return peakValue;
+    }
+
+    private double energy(double[] signal, int offset) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double value = signal[offset + i];
+            sum += value * value;
+        }
+        return sum;
+    }
+
+    // Circular correlation of the zero-padded signals into correlation[]
+    private void correlate(double[] reference, int referenceOffset, double[] signal, int signalOffset) {
+        System.arraycopy(reference, referenceOffset, frame, 0, length);
+        Arrays.fill(frame, length, fftSize, 0);
+        plan.realTransform(frame, 0, null, referenceReal, referenceImag, workspace);
+        System.arraycopy(signal, signalOffset, frame, 0, length);
+        plan.realTransform(frame, 0, null, signalReal, signalImag, workspace);
+
+        // Cross-spectrum conj(A) * B, written over the signal bins
+        int bins = fftSize / 2 + 1;
+        double largest = 0;
+        for (int k = 0; k < bins; k++) {
+            double ar = referenceReal[k];
+            double ai = referenceImag[k];
+            double br = signalReal[k];
+            double bi = signalImag[k];
+            signalReal[k] = ar * br + ai * bi;
+            signalImag[k] = ar * bi - ai * br;
+            if (weighting == Weighting.PHAT) {
+                largest = Math.max(largest, Math.sqrt(signalReal[k] * signalReal[k] + signalImag[k] * signalImag[k]));
+            }
+        }
+        if (weighting == Weighting.PHAT) {
+            double floor = largest * PHAT_FLOOR;
+            for (int k = 0; k < bins; k++) {
+                double magnitude = Math.sqrt(signalReal[k] * signalReal[k] + signalImag[k] * signalImag[k]);
+                double scale = magnitude > floor ? 1 / magnitude : 0;
+                signalReal[k] *= scale;
+                signalImag[k] *= scale;
+            }
+        }
+        plan.inverseRealTransform(signalReal, signalImag, correlation, workspace);
+    }
+}
\ No newline at end of file
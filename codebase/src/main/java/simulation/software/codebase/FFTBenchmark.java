@@ -0,0 +1,92 @@
+package simulation.software.codebase;
+
+import java.util.Random;
+
+// Throughput curve of the power-of-2 complex FFT kernels: nanoseconds per point
+// against N, one row per size and one column per kernel, plus the kernel
+// selectKernel() picks. A flat curve means the kernel keeps its cache behaviour
+// as N grows. Each timing is the best of several rounds after JIT warm-up and
+// includes re-copying the input, which costs the same for every kernel.
+// Usage: FFTBenchmark [maxLog2] [minLog2], defaults 2^22 and 2^10; sizes up to
+// 2^24 need roughly 1 GB of heap.
+public class FFTBenchmark {
+    private static final int ROUNDS = 7;
+    private static final int WARMUP_ROUNDS = 2;
+
+    // Points transformed per round, so small sizes repeat enough to be measurable
+    private static final int POINTS_PER_ROUND = 1 << 22;
+
+    // The simple radix-2 loops are left out beyond this size; they take minutes
+    // at tens of millions of points without telling anything new
+    private static final int MAX_RADIX_2_SIZE = 1 << 20;
+
+    private static final FFTPlan.Kernel[] KERNELS = {
+            FFTPlan.Kernel.RADIX_2,
+            FFTPlan.Kernel.RADIX_4,
+            FFTPlan.Kernel.SPLIT_RADIX,
+            FFTPlan.Kernel.SIMD_RADIX_2,
+            FFTPlan.Kernel.FOUR_STEP
+    };
+
+    private FFTBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxLog2 = args.length > 0 ? Integer.parseInt(args[0]) : 22;
+        int minLog2 = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        StringBuilder header = new StringBuilder(String.format("%10s", "N"));
+        for (FFTPlan.Kernel kernel : KERNELS) {
+            header.append(String.format("%14s", kernel));
+        }
+        header.append("   selected (ns/point)");
+        System.out.println(header);
+
+        for (int log2 = minLog2; log2 <= maxLog2; log2++) {
+            int n = 1 << log2;
+            FFTPlan plan = FFTPlan.forSize(n);
+            double[] sourceReal = new double[n];
+            double[] sourceImag = new double[n];
+            Random random = new Random(n);
+            for (int i = 0; i < n; i++) {
+                sourceReal[i] = random.nextDouble() - 0.5;
+                sourceImag[i] = random.nextDouble() - 0.5;
+            }
+            double[] real = new double[n];
+            double[] imag = new double[n];
+            FFTWorkspace workspace = new FFTWorkspace();
+
+            StringBuilder row = new StringBuilder(String.format("%10d", n));
+            for (FFTPlan.Kernel kernel : KERNELS) {
+                if (!plan.supports(kernel) || (kernel == FFTPlan.Kernel.RADIX_2 && n > MAX_RADIX_2_SIZE)) {
+                    row.append(String.format("%14s", "-"));
+                    continue;
+                }
+                double nanos = nanosPerPoint(plan, kernel, sourceReal, sourceImag, real, imag, workspace);
+                row.append(String.format("%14.2f", nanos));
+            }
+            row.append("   ").append(FFTPlan.selectKernel(n));
+            System.out.println(row);
+        }
+    }
+
+    private static double nanosPerPoint(FFTPlan plan, FFTPlan.Kernel kernel, double[] sourceReal,
+                                        double[] sourceImag, double[] real, double[] imag, FFTWorkspace workspace) {
+        int n = plan.getSize();
+        int repetitions = Math.max(1, POINTS_PER_ROUND / n);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                System.arraycopy(sourceReal, 0, real, 0, n);
+                System.arraycopy(sourceImag, 0, imag, 0, n);
+                plan.transform(real, imag, kernel, workspace);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return (double) best / ((long) repetitions * n);
+    }
+}
\ No newline at end of file
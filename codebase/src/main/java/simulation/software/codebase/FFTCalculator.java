@@ -1,154 +1,312 @@
 package simulation.software.codebase;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
 public class FFTCalculator {
-    // Computes the FFT magnitude spectrum of the input waveform
-    public double[] computeFFTMagnitude(double[] input) {
-        if (input == null || input.length < 2) {
-            return new double[0];
-        }
+    // Samples handed to one batch task at a time; enough work to amortise the task overhead
+    private static final int MIN_SAMPLES_PER_TASK = 1 << 14;
 
-        // Ensure input length is a power of 2
-        int n = nextPowerOfTwo(input.length);
-        double[] paddedInput = new double[n];
-        for (int i = 0; i < input.length; i++) {
-            paddedInput[i] = input[i];
-        }
+    // Arithmetic used for the transform. SINGLE runs FloatFFTPlan, which is
+    // accurate to roughly -135 dB below the peak; see PrecisionReport.
+    public enum Precision { DOUBLE, SINGLE }
 
-        // Perform FFT
-        Complex[] fftResult = fft(paddedInput);
+    private final Precision precision;
 
-        // Compute magnitude for positive frequencies
-        int outputLength = n / 2;
-        double[] magnitude = new double[outputLength];
-        for (int i = 0; i < outputLength; i++) {
-            magnitude[i] = Math.sqrt(fftResult[i].real * fftResult[i].real + fftResult[i].imag * fftResult[i].imag);
-        }
+    // Most recent zoom transform, reused while the band and input length stay the same.
+    // ChirpZTransform is immutable and each call reads this field once, so
+    // calculators can be shared across threads; a thread zooming on a different
+    // band just replaces the entry.
+    private volatile ChirpZTransform zoomTransform;
 
-        return magnitude;
+    public FFTCalculator() {
+        this(Precision.DOUBLE);
     }
 
-    // Computes the FFT phase spectrum of the input waveform
-    public double[] computeFFTPhase(double[] input) {
-        if (input == null || input.length < 2) {
-            return new double[0];
-        }
+    public FFTCalculator(Precision precision) {
+        this.precision = precision;
+    }
 
-        // Ensure input length is a power of 2
-        int n = nextPowerOfTwo(input.length);
-        double[] paddedInput = new double[n];
-        for (int i = 0; i < input.length; i++) {
-            paddedInput[i] = input[i];
-        }
+    public Precision getPrecision() {
+        return precision;
+    }
 
-        // Perform FFT
-        Complex[] fftResult = fft(paddedInput);
+    // Computes the complex spectrum of the input waveform in a single transform.
+    // Magnitude, phase and power are derived lazily from the same bins.
+    public Spectrum computeSpectrum(double[] input, double sampleRate) {
+        if (input == null || input.length < 2 || sampleRate <= 0) {
+            return Spectrum.empty();
+        }
 
-        // Compute phase for positive frequencies
-        int outputLength = n / 2;
-        double[] phase = new double[outputLength];
-        for (int i = 0; i < outputLength; i++) {
-            phase[i] = Math.atan2(fftResult[i].imag, fftResult[i].real);
+        // Transform the exact input length; mixed-radix and Bluestein plans cover any size
+        int n = input.length;
+        if (precision == Precision.SINGLE && FloatFFTPlan.supportsSize(n)) {
+            return computeSingleSpectrum(input, sampleRate);
         }
+        double[] real = new double[n / 2 + 1];
+        double[] imag = new double[n / 2 + 1];
 
-        return phase;
+        // Perform real-input FFT (half-spectrum only)
+        FFTPlan.forSize(n).realTransform(input, real, imag);
+
+        // Expose positive frequencies below Nyquist
+        return new Spectrum(real, imag, n / 2, sampleRate / n);
     }
 
-    // Computes the magnitude spectrum with sample rate for frequency bin alignment
-    public double[] calculateMagnitudeSpectrum(double[] input, int sampleRate) {
+    // Spectrum of the input after applying a window. The window is fused into the
+    // transform's input packing and uses coherent-gain corrected coefficients, so a
+    // tone's peak magnitude matches the unwindowed reading. Always double precision.
+    public Spectrum computeSpectrum(double[] input, double sampleRate, WindowFunction.Type windowType) {
         if (input == null || input.length < 2 || sampleRate <= 0) {
-            return new double[0];
+            return Spectrum.empty();
         }
+        int n = input.length;
+        double[] window = WindowFunction.forType(windowType, n).getCorrectedCoefficients();
+        double[] real = new double[n / 2 + 1];
+        double[] imag = new double[n / 2 + 1];
+        FFTPlan.forSize(n).realTransform(input, 0, window, real, imag);
+        return new Spectrum(real, imag, n / 2, sampleRate / n);
+    }
 
-        // Ensure input length is a power of 2
-        int n = nextPowerOfTwo(input.length);
-        double[] paddedInput = new double[n];
-        for (int i = 0; i < input.length; i++) {
-            paddedInput[i] = input[i];
+    // Single-precision transform of a double waveform; bins are widened back to double
+    private Spectrum computeSingleSpectrum(double[] input, double sampleRate) {
+        int n = input.length;
+        float[] samples = new float[n];
+        for (int i = 0; i < n; i++) {
+            samples[i] = (float) input[i];
         }
+        float[] real = new float[n / 2 + 1];
+        float[] imag = new float[n / 2 + 1];
+        FloatFFTPlan.forSize(n).realTransform(samples, real, imag);
 
-        // Perform FFT
-        Complex[] fftResult = fft(paddedInput);
+        double[] wideReal = new double[n / 2 + 1];
+        double[] wideImag = new double[n / 2 + 1];
+        for (int k = 0; k <= n / 2; k++) {
+            wideReal[k] = real[k];
+            wideImag[k] = imag[k];
+        }
+        return new Spectrum(wideReal, wideImag, n / 2, sampleRate / n);
+    }
 
-        // Compute magnitude for positive frequencies (up to Nyquist)
-        int outputLength = n / 2;
-        double[] magnitude = new double[outputLength];
-        for (int i = 0; i < outputLength; i++) {
-            magnitude[i] = Math.sqrt(fftResult[i].real * fftResult[i].real + fftResult[i].imag * fftResult[i].imag);
+    // Inverse real FFT: rebuilds n samples from bins 0..n/2 (arrays of at least
+    // n/2 + 1 entries, as produced by a forward transform of length n)
+    public double[] computeInverse(double[] real, double[] imag, int n) {
+        if (real == null || imag == null || n < 1 || real.length < n / 2 + 1 || imag.length < n / 2 + 1) {
+            return new double[0];
         }
+        double[] output = new double[n];
+        FFTPlan.forSize(n).inverseRealTransform(real, imag, output);
+        return output;
+    }
 
-        return magnitude;
+    // Dense grid of binCount bins from startFrequency to endFrequency (inclusive), evaluated
+    // with a chirp-Z transform. Resolves detail near a peak at roughly the cost of one
+    // transform of the input length instead of zero-padding to a huge FFT.
+    public Spectrum computeZoomSpectrum(double[] input, double sampleRate, double startFrequency,
+                                        double endFrequency, int binCount) {
+        if (input == null || input.length < 2 || sampleRate <= 0 || binCount < 1
+                || endFrequency < startFrequency) {
+            return Spectrum.empty();
+        }
+        double binSpacing = binCount > 1 ? (endFrequency - startFrequency) / (binCount - 1) : 0;
+        ChirpZTransform transform = zoomTransform;
+        if (transform == null || !transform.matches(input.length, sampleRate, startFrequency, binSpacing, binCount)) {
+            transform = new ChirpZTransform(input.length, sampleRate, startFrequency, binSpacing, binCount);
+            zoomTransform = transform;
+        }
+        return transform.transform(input);
     }
 
-    // Cooley-Tukey FFT algorithm
-    private Complex[] fft(double[] input) {
+    // Magnitude spectrum of a single-precision waveform, computed entirely in float.
+    // Sizes with a prime factor above 7 fall back to the double path.
+    public float[] computeFFTMagnitude(float[] input) {
+        if (input == null || input.length < 2) {
+            return new float[0];
+        }
         int n = input.length;
-        Complex[] x = new Complex[n];
-        for (int i = 0; i < n; i++) {
-            x[i] = new Complex(input[i], 0);
+        float[] magnitude = new float[n / 2];
+        if (!FloatFFTPlan.supportsSize(n)) {
+            double[] samples = new double[n];
+            for (int i = 0; i < n; i++) {
+                samples[i] = input[i];
+            }
+            double[] wide = computeSpectrum(samples, 1).getMagnitude();
+            for (int k = 0; k < n / 2; k++) {
+                magnitude[k] = (float) wide[k];
+            }
+            return magnitude;
         }
+        float[] real = new float[n / 2 + 1];
+        float[] imag = new float[n / 2 + 1];
+        FloatFFTPlan.forSize(n).realTransform(input, real, imag);
+        SpectralMath.magnitude(real, imag, magnitude, n / 2);
+        return magnitude;
+    }
+
+    // Computes the FFT magnitude spectrum of the input waveform
+    public double[] computeFFTMagnitude(double[] input) {
+        return computeSpectrum(input, 1).getMagnitude();
+    }
 
-        if (n <= 1) {
-            return x;
+    // Computes the FFT phase spectrum of the input waveform
+    public double[] computeFFTPhase(double[] input) {
+        return computeSpectrum(input, 1).getPhase();
+    }
+
+    // Computes the magnitude spectrum with sample rate for frequency bin alignment
+    public double[] calculateMagnitudeSpectrum(double[] input, int sampleRate) {
+        return computeSpectrum(input, sampleRate).getMagnitude();
+    }
+
+    // Allocation-free variants for steady-state updates: the n/2 bins are written into
+    // the caller's array and all scratch comes from workspace. Each returns the number
+    // of bins written, or 0 if the input is too short or the output cannot hold n/2 bins.
+    public int computeFFTMagnitude(double[] input, double[] magnitude, FFTWorkspace workspace) {
+        int bins = transformInto(input, magnitude, workspace);
+        if (bins > 0) {
+            SpectralMath.magnitude(workspace.binReal(bins + 1), workspace.binImag(bins + 1), magnitude, bins);
         }
+        return bins;
+    }
 
-        // Bit-reversal permutation
-        Complex[] result = new Complex[n];
-        for (int i = 0; i < n; i++) {
-            int j = Integer.reverse(i) >>> (32 - Integer.numberOfLeadingZeros(n - 1));
-            result[j] = x[i];
-        }
-
-        // Butterfly operations
-        for (int size = 2; size <= n; size *= 2) {
-            int halfSize = size / 2;
-            double angle = -2 * Math.PI / size;
-            Complex w = new Complex(Math.cos(angle), Math.sin(angle));
-            for (int i = 0; i < n; i += size) {
-                Complex wk = new Complex(1, 0);
-                for (int j = 0; j < halfSize; j++) {
-                    Complex t = wk.multiply(result[i + j + halfSize]);
-                    result[i + j + halfSize] = result[i + j].subtract(t);
-                    result[i + j] = result[i + j].add(t);
-                    wk = wk.multiply(w);
-                }
-            }
+    public int computeFFTPhase(double[] input, double[] phase, FFTWorkspace workspace) {
+        int bins = transformInto(input, phase, workspace);
+        if (bins > 0) {
+            SpectralMath.phase(workspace.binReal(bins + 1), workspace.binImag(bins + 1), phase, bins);
         }
+        return bins;
+    }
 
-        return result;
+    public int computeFFTPower(double[] input, double[] power, FFTWorkspace workspace) {
+        int bins = transformInto(input, power, workspace);
+        if (bins > 0) {
+            SpectralMath.power(workspace.binReal(bins + 1), workspace.binImag(bins + 1), power, bins);
+        }
+        return bins;
     }
 
-    // Find next power of 2
-    private int nextPowerOfTwo(int n) {
-        int power = 1;
-        while (power < n) {
-            power *= 2;
+    public int computeFFTMagnitude(float[] input, float[] magnitude, FFTWorkspace workspace) {
+        if (input == null || input.length < 2 || magnitude == null || magnitude.length < input.length / 2) {
+            return 0;
+        }
+        int n = input.length;
+        int bins = n / 2;
+        if (!FloatFFTPlan.supportsSize(n)) {
+            // Odd sizes transform in this same scratch buffer, which is safe: the copy-in is an identity
+            double[] samples = workspace.scratchReal(n);
+            for (int i = 0; i < n; i++) {
+                samples[i] = input[i];
+            }
+            double[] real = workspace.binReal(bins + 1);
+            double[] imag = workspace.binImag(bins + 1);
+            FFTPlan.forSize(n).realTransform(samples, 0, null, real, imag, workspace);
+            for (int k = 0; k < bins; k++) {
+                magnitude[k] = (float) Math.hypot(real[k], imag[k]);
+            }
+            return bins;
         }
-        return power;
+        float[] real = workspace.floatBinReal(bins + 1);
+        float[] imag = workspace.floatBinImag(bins + 1);
+        FloatFFTPlan.forSize(n).realTransform(input, real, imag, workspace);
+        SpectralMath.magnitude(real, imag, magnitude, bins);
+        return bins;
     }
 
-    // Helper class for complex numbers
-    private static class Complex {
-        double real;
-        double imag;
+    // Inverse real FFT of bins 0..n/2 into the first n entries of output; returns n, or 0 if the arrays are too short
+    public int computeInverse(double[] real, double[] imag, double[] output, int n, FFTWorkspace workspace) {
+        if (real == null || imag == null || output == null || n < 1 || real.length < n / 2 + 1
+                || imag.length < n / 2 + 1 || output.length < n) {
+            return 0;
+        }
+        FFTPlan.forSize(n).inverseRealTransform(real, imag, output, workspace);
+        return n;
+    }
 
-        Complex(double real, double imag) {
-            this.real = real;
-            this.imag = imag;
+    // Forward transform of input into the workspace bins, in this calculator's precision
+    private int transformInto(double[] input, double[] output, FFTWorkspace workspace) {
+        if (input == null || input.length < 2 || output == null || output.length < input.length / 2) {
+            return 0;
         }
+        int n = input.length;
+        int bins = n / 2;
+        double[] real = workspace.binReal(bins + 1);
+        double[] imag = workspace.binImag(bins + 1);
+        if (precision == Precision.SINGLE && FloatFFTPlan.supportsSize(n)) {
+            float[] samples = workspace.floatSamples(n);
+            for (int i = 0; i < n; i++) {
+                samples[i] = (float) input[i];
+            }
+            float[] floatReal = workspace.floatBinReal(bins + 1);
+            float[] floatImag = workspace.floatBinImag(bins + 1);
+            FloatFFTPlan.forSize(n).realTransform(samples, floatReal, floatImag, workspace);
+            for (int k = 0; k <= bins; k++) {
+                real[k] = floatReal[k];
+                imag[k] = floatImag[k];
+            }
+        } else {
+            FFTPlan.forSize(n).realTransform(input, 0, null, real, imag, workspace);
+        }
+        return bins;
+    }
 
-        Complex add(Complex other) {
-            return new Complex(real + other.real, imag + other.imag);
+    // Magnitude spectra of frameCount consecutive frames of frameLength samples
+    // stored back to back in frames. Frame f's frameLength / 2 bins land at
+    // offset f * (frameLength / 2) of the returned array. Frames are transformed
+    // in parallel with one shared plan and per-task scratch buffers.
+    public double[] computeMagnitudeBatch(double[] frames, int frameLength, int frameCount) {
+        if (frames == null || frameLength < 2 || frameCount < 1
+                || (long) frameLength * frameCount > frames.length) {
+            return new double[0];
         }
+        int bins = frameLength / 2;
+        double[] out = new double[bins * frameCount];
+        boolean single = precision == Precision.SINGLE && FloatFFTPlan.supportsSize(frameLength);
+        FFTPlan plan = single ? null : FFTPlan.forSize(frameLength);
+        FloatFFTPlan floatPlan = single ? FloatFFTPlan.forSize(frameLength) : null;
 
-        Complex subtract(Complex other) {
-            return new Complex(real - other.real, imag - other.imag);
+        int framesPerTask = Math.max(1, MIN_SAMPLES_PER_TASK / frameLength);
+        int tasks = (frameCount + framesPerTask - 1) / framesPerTask;
+        IntStream taskRange = IntStream.range(0, tasks);
+        if (tasks > 1 && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            taskRange = taskRange.parallel();
         }
+        taskRange.forEach(task -> {
+            int from = task * framesPerTask;
+            int to = Math.min(frameCount, from + framesPerTask);
+            FFTWorkspace workspace = new FFTWorkspace();
+            if (single) {
+                transformSingleFrames(floatPlan, frames, frameLength, from, to, out, workspace);
+            } else {
+                double[] real = new double[bins + 1];
+                double[] imag = new double[bins + 1];
+                for (int frame = from; frame < to; frame++) {
+                    plan.realTransform(frames, frame * frameLength, null, real, imag, workspace);
+                    SpectralMath.magnitude(real, imag, real, bins);
+                    System.arraycopy(real, 0, out, frame * bins, bins);
+                }
+            }
+        });
+        return out;
+    }
 
-        Complex multiply(Complex other) {
-            return new Complex(
-                    real * other.real - imag * other.imag,
-                    real * other.imag + imag * other.real
-            );
+    // Single-precision body of computeMagnitudeBatch for frames [from, to)
+    private static void transformSingleFrames(FloatFFTPlan plan, double[] frames, int frameLength,
+                                              int from, int to, double[] out, FFTWorkspace workspace) {
+        int bins = frameLength / 2;
+        float[] samples = new float[frameLength];
+        float[] real = new float[bins + 1];
+        float[] imag = new float[bins + 1];
+        for (int frame = from; frame < to; frame++) {
+            int offset = frame * frameLength;
+            for (int i = 0; i < frameLength; i++) {
+                samples[i] = (float) frames[offset + i];
+            }
+            plan.realTransform(samples, real, imag, workspace);
+            SpectralMath.magnitude(real, imag, real, bins);
+            int outOffset = frame * bins;
+            for (int k = 0; k < bins; k++) {
+                out[outOffset + k] = real[k];
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,963 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class FFTPlan {
+    // Transform kernels: the first five handle power-of-2 sizes, mixed-radix
+    // handles sizes whose only prime factors are 2, 3, 5 and 7, and Bluestein
+    // handles every other size. SIMD_RADIX_2 needs the Vector API at runtime.
+    public enum Kernel {
+        RADIX_2,
+        RADIX_4,
+        SPLIT_RADIX,
+        SIMD_RADIX_2,
+        FOUR_STEP,
+        MIXED_RADIX,
+        BLUESTEIN
+    }
+
+    // Below this size the twiddle-free radix-2 loops have the least overhead
+    private static final int MIN_SPLIT_RADIX_SIZE = 8;
+
+    // Split-radix has the fewest multiplies but strides across the whole array on
+    // every pass; beyond this size radix-4 keeps better cache locality
+    private static final int MAX_SPLIT_RADIX_SIZE = 2048;
+
+    // Power-of-2 sizes from this up run the four-step kernel on the common
+    // ForkJoinPool; smaller transforms finish before the tasks pay for themselves
+    private static final int MIN_PARALLEL_SIZE = 1 << 18;
+
+    // From this size the single-pass kernels' strided butterflies miss the cache on
+    // every pass, and the cache-blocked four-step kernel is faster even on one core
+    private static final int MIN_BLOCKED_SIZE = 1 << 22;
+
+    // Upper bound on the number of transform sizes kept in the plan cache
+    private static final int MAX_CACHED_PLANS = 16;
+
+    // Least-recently-used cache of plans keyed by transform size
+    private static final Map<Integer, FFTPlan> CACHE = new LinkedHashMap<Integer, FFTPlan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, FFTPlan> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+
+    // Lock-free lookaside in front of the cache, indexed by a Fibonacci hash of the
+    // size so that powers of 2 spread out; steady-state callers skip the
+    // synchronized, boxed map lookup
+    private static final FFTPlan[] RECENT = new FFTPlan[64];
+
+    private final int size;
+    private final int[] bitReverse;
+    private final double[] cos;
+    private final double[] sin;
+
+    // Contiguous per-stage twiddles for the SIMD kernel, built on first use
+    private volatile double[][] stageTwiddles;
+
+    // Radix sequence for the mixed-radix kernel, null if N is a power of 2 (the
+    // power-of-2 kernels cover it) or has a prime factor above 7
+    private final int[] factors;
+
+    // Per-pass mixed-radix twiddles W_length^(p*k), laid out pass by pass with radix entries per p
+    private final double[] passTwiddleReal;
+    private final double[] passTwiddleImag;
+
+    // Bluestein tables, only built for sizes mixed-radix cannot handle
+    private final double[] chirpCos;
+    private final double[] chirpSin;
+    private final double[] chirpSpectrumReal;
+    private final double[] chirpSpectrumImag;
+    private final FFTPlan convolutionPlan;
+
+    private FFTPlan(int size) {
+        this.size = size;
+        boolean powerOfTwo = Integer.bitCount(size) == 1;
+
+        // Bit-reversal permutation table
+        if (powerOfTwo) {
+            bitReverse = new int[size];
+            int shift = 32 - Integer.numberOfTrailingZeros(size);
+            for (int i = 0; i < size && size > 1; i++) {
+                bitReverse[i] = Integer.reverse(i) >>> shift;
+            }
+        } else {
+            bitReverse = null;
+        }
+
+        // Twiddle factors W^k = exp(-2*pi*i*k/N), each computed directly. Power-of-2
+        // sizes keep k < N/2 and use W^(k + N/2) = -W^k; other sizes keep the full circle.
+        int tableLength = powerOfTwo ? size / 2 : size;
+        cos = new double[tableLength];
+        sin = new double[tableLength];
+        for (int k = 0; k < tableLength; k++) {
+            double angle = -2 * Math.PI * k / size;
+            cos[k] = Math.cos(angle);
+            sin[k] = Math.sin(angle);
+        }
+
+        factors = powerOfTwo ? null : factorize(size);
+
+        if (factors != null) {
+            int total = 0;
+            int length = size;
+            for (int radix : factors) {
+                total += length;
+                length /= radix;
+            }
+            passTwiddleReal = new double[total];
+            passTwiddleImag = new double[total];
+            int offset = 0;
+            length = size;
+            int stride = 1;
+            for (int radix : factors) {
+                int m = length / radix;
+                for (int p = 0; p < m; p++) {
+                    for (int k = 0; k < radix; k++) {
+                        passTwiddleReal[offset] = twiddleCos(p * k * stride);
+                        passTwiddleImag[offset] = twiddleSin(p * k * stride);
+                        offset++;
+                    }
+                }
+                length = m;
+                stride *= radix;
+            }
+        } else {
+            passTwiddleReal = null;
+            passTwiddleImag = null;
+        }
+
+        if (!powerOfTwo && factors == null) {
+            // Chirp w_k = exp(-i*pi*k^2/N); k^2 is reduced mod 2N to keep the angle exact
+            chirpCos = new double[size];
+            chirpSin = new double[size];
+            for (int k = 0; k < size; k++) {
+                long phase = ((long) k * k) % (2L * size);
+                double angle = -Math.PI * phase / size;
+                chirpCos[k] = Math.cos(angle);
+                chirpSin[k] = Math.sin(angle);
+            }
+
+            // Spectrum of the conjugate chirp, wrapped for circular convolution
+            int m = Integer.highestOneBit(2 * size - 1) << 1;
+            convolutionPlan = forSize(m);
+            chirpSpectrumReal = new double[m];
+            chirpSpectrumImag = new double[m];
+            chirpSpectrumReal[0] = chirpCos[0];
+            chirpSpectrumImag[0] = -chirpSin[0];
+            for (int k = 1; k < size; k++) {
+                chirpSpectrumReal[k] = chirpCos[k];
+                chirpSpectrumImag[k] = -chirpSin[k];
+                chirpSpectrumReal[m - k] = chirpCos[k];
+                chirpSpectrumImag[m - k] = -chirpSin[k];
+            }
+            convolutionPlan.transform(chirpSpectrumReal, chirpSpectrumImag);
+        } else {
+            chirpCos = null;
+            chirpSin = null;
+            chirpSpectrumReal = null;
+            chirpSpectrumImag = null;
+            convolutionPlan = null;
+        }
+    }
+
+    // Splits N into radices 4, 2, 3, 5 and 7, or returns null if another prime divides N
+    static int[] factorize(int n) {
+        int[] radices = new int[32];
+        int count = 0;
+        int remaining = n;
+        while (remaining % 4 == 0) {
+            radices[count++] = 4;
+            remaining /= 4;
+        }
+        for (int radix : new int[]{2, 3, 5, 7}) {
+            while (remaining % radix == 0) {
+                radices[count++] = radix;
+                remaining /= radix;
+            }
+        }
+        return remaining == 1 ? Arrays.copyOf(radices, count) : null;
+    }
+
+    // Index into the 64-entry lookaside tables of FFTPlan and FloatFFTPlan
+    static int recentSlot(int size) {
+        return (size * 0x9E3779B9) >>> 26;
+    }
+
+    // Whether N has no prime factor above 7; same test as factorize without allocating
+    static boolean isSmooth(int n) {
+        int remaining = n;
+        for (int radix = 2; radix <= 7 && remaining > 1; radix++) {
+            while (remaining % radix == 0) {
+                remaining /= radix;
+            }
+        }
+        return remaining == 1;
+    }
+
+    // Returns the shared plan for a transform size
+    public static FFTPlan forSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("FFT size must be positive: " + size);
+        }
+        int slot = recentSlot(size);
+        FFTPlan recent = RECENT[slot];
+        if (recent != null && recent.size == size) {
+            return recent;
+        }
+        synchronized (CACHE) {
+            FFTPlan plan = CACHE.get(size);
+            if (plan == null) {
+                plan = new FFTPlan(size);
+                CACHE.put(size, plan);
+            }
+            RECENT[slot] = plan;
+            return plan;
+        }
+    }
+
+    // Picks the kernel for a transform size: the measured winner if FFTWisdom has
+    // one for this host, otherwise a size-based heuristic
+    public static Kernel selectKernel(int size) {
+        Kernel tuned = FFTWisdom.lookup(size);
+        if (tuned != null) {
+            return tuned;
+        }
+        return defaultKernel(size);
+    }
+
+    // Heuristic choice used when no measurement is available
+    public static Kernel defaultKernel(int size) {
+        if (Integer.bitCount(size) != 1) {
+            return isSmooth(size) ? Kernel.MIXED_RADIX : Kernel.BLUESTEIN;
+        }
+        if (size < MIN_SPLIT_RADIX_SIZE) {
+            return Kernel.RADIX_2;
+        }
+        if (size <= MAX_SPLIT_RADIX_SIZE) {
+            return Kernel.SPLIT_RADIX;
+        }
+        if (size >= MIN_BLOCKED_SIZE
+                || (size >= MIN_PARALLEL_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1)) {
+            return Kernel.FOUR_STEP;
+        }
+        if (SpectralMath.isVectorized()) {
+            return Kernel.SIMD_RADIX_2;
+        }
+        return Kernel.RADIX_4;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Whether this plan has the tables a kernel needs
+    public boolean supports(Kernel kernel) {
+        switch (kernel) {
+            case MIXED_RADIX:
+                return factors != null;
+            case BLUESTEIN:
+                return chirpCos != null;
+            case FOUR_STEP:
+                return bitReverse != null && size >= 4;
+            case SIMD_RADIX_2:
+                return bitReverse != null && SpectralMath.isVectorized();
+            default:
+                return bitReverse != null;
+        }
+    }
+
+    // In-place forward FFT on split real/imaginary arrays using the kernel selected for this size
+    public void transform(double[] real, double[] imag) {
+        transform(real, imag, new FFTWorkspace());
+    }
+
+    // Same as above with scratch taken from workspace, so repeated calls allocate
+    // nothing (the four-step kernel still allocates its per-task row buffers)
+    public void transform(double[] real, double[] imag, FFTWorkspace workspace) {
+        transform(real, imag, size, 1, selectKernel(size), workspace);
+    }
+
+    // In-place forward FFT using a specific kernel
+    public void transform(double[] real, double[] imag, Kernel kernel) {
+        transform(real, imag, kernel, new FFTWorkspace());
+    }
+
+    // Same as above with scratch taken from workspace
+    public void transform(double[] real, double[] imag, Kernel kernel, FFTWorkspace workspace) {
+        if (!supports(kernel)) {
+            throw new IllegalArgumentException(kernel + " cannot transform size " + size);
+        }
+        transform(real, imag, size, 1, kernel, workspace);
+    }
+
+    // Forward FFT of N real samples through an N/2-point complex transform.
+    // Samples beyond input.length are treated as zero. Writes the N/2 + 1
+    // non-redundant bins (DC through Nyquist) into real and imag, which are
+    // also used as the packing buffers.
+    public void realTransform(double[] input, double[] real, double[] imag) {
+        realTransform(input, 0, real, imag);
+    }
+
+    // Same as above for the N samples starting at offset, so frames can be read
+    // straight out of a contiguous block; samples past the end of input count as zero
+    public void realTransform(double[] input, int offset, double[] real, double[] imag) {
+        realTransform(input, offset, null, real, imag);
+    }
+
+    // Same as above with the samples multiplied by window (length N, or null for none)
+    // while they are packed, so windowing needs no separate pass over the input
+    public void realTransform(double[] input, int offset, double[] window, double[] real, double[] imag) {
+        realTransform(input, offset, window, real, imag, new FFTWorkspace());
+    }
+
+    // Same as above with scratch taken from workspace
+    public void realTransform(double[] input, int offset, double[] window, double[] real, double[] imag,
+                              FFTWorkspace workspace) {
+        int n = size;
+        int half = n / 2;
+        int length = Math.max(0, Math.min(input.length - offset, n));
+        if (n < 2) {
+            real[0] = length > 0 ? input[offset] * (window != null ? window[0] : 1) : 0;
+            imag[0] = 0;
+            return;
+        }
+        if (n % 2 == 1) {
+            oddRealTransform(input, offset, length, window, real, imag, workspace);
+            return;
+        }
+
+        // Pack even samples into the real part and odd samples into the imaginary part
+        if (window == null) {
+            for (int i = 0; i < half; i++) {
+                int even = 2 * i;
+                real[i] = even < length ? input[offset + even] : 0;
+                imag[i] = even + 1 < length ? input[offset + even + 1] : 0;
+            }
+        } else {
+            for (int i = 0; i < half; i++) {
+                int even = 2 * i;
+                real[i] = even < length ? input[offset + even] * window[even] : 0;
+                imag[i] = even + 1 < length ? input[offset + even + 1] * window[even + 1] : 0;
+            }
+        }
+
+        // Half-size complex transform; power-of-2 plans reuse their own tables at stride 2
+        Kernel halfKernel = selectKernel(half);
+        if (bitReverse != null && halfKernel != Kernel.FOUR_STEP) {
+            transform(real, imag, half, 2, halfKernel, workspace);
+        } else {
+            forSize(half).transform(real, imag, workspace);
+        }
+
+        // Post-twiddle: separate the even/odd spectra and combine them, pairing bins k and N/2 - k
+        double z0r = real[0];
+        double z0i = imag[0];
+        real[0] = z0r + z0i;
+        imag[0] = 0;
+        real[half] = z0r - z0i;
+        imag[half] = 0;
+        for (int k = 1; k <= half / 2; k++) {
+            int mirror = half - k;
+            double ar = real[k];
+            double ai = imag[k];
+            double br = real[mirror];
+            double bi = imag[mirror];
+
+            double er = 0.5 * (ar + br);
+            double ei = 0.5 * (ai - bi);
+            double or = 0.5 * (ai + bi);
+            double oi = -0.5 * (ar - br);
+
+            double wr = cos[k];
+            double wi = sin[k];
+            double tr = wr * or - wi * oi;
+            double ti = wr * oi + wi * or;
+
+            real[k] = er + tr;
+            imag[k] = ei + ti;
+            real[mirror] = er - tr;
+            imag[mirror] = ti - ei;
+        }
+    }
+
+    // Inverse of realTransform: rebuilds N real samples from bins 0..N/2 and
+    // scales by 1/N, so a forward/inverse round trip returns the input. The
+    // imaginary parts of DC and (for even N) Nyquist are ignored.
+    public void inverseRealTransform(double[] real, double[] imag, double[] output) {
+        inverseRealTransform(real, imag, output, new FFTWorkspace());
+    }
+
+    // Same as above with scratch taken from workspace
+    public void inverseRealTransform(double[] real, double[] imag, double[] output, FFTWorkspace workspace) {
+        int n = size;
+        int half = n / 2;
+        if (n < 2) {
+            output[0] = real[0];
+            return;
+        }
+        if (n % 2 == 1) {
+            oddInverseRealTransform(real, imag, output, workspace);
+            return;
+        }
+
+        // Undo the post-twiddle: Z_k = E_k + i*O_k with E_k = (X_k + conj(X_(h-k))) / 2
+        // and O_k = (X_k - conj(X_(h-k))) * W^-k / 2; the conjugate of Z is stored so
+        // a forward transform computes the inverse
+        double[] zr = workspace.scratchReal(half);
+        double[] zi = workspace.scratchImag(half);
+        for (int k = 0; k < half; k++) {
+            int mirror = half - k;
+            double ar = real[k];
+            double ai = k == 0 ? 0 : imag[k];
+            double br = real[mirror];
+            double bi = k == 0 ? 0 : -imag[mirror];
+
+            double er = 0.5 * (ar + br);
+            double ei = 0.5 * (ai + bi);
+            double dr = 0.5 * (ar - br);
+            double di = 0.5 * (ai - bi);
+
+            double wr = cos[k];
+            double wi = -sin[k];
+            double or = dr * wr - di * wi;
+            double oi = dr * wi + di * wr;
+
+            zr[k] = er - oi;
+            zi[k] = -(ei + or);
+        }
+
+        Kernel halfKernel = selectKernel(half);
+        if (bitReverse != null && halfKernel != Kernel.FOUR_STEP) {
+            transform(zr, zi, half, 2, halfKernel, workspace);
+        } else {
+            forSize(half).transform(zr, zi, workspace);
+        }
+
+        // Conjugate back and unpack even/odd samples
+        double scale = 1.0 / half;
+        for (int i = 0; i < half; i++) {
+            output[2 * i] = zr[i] * scale;
+            output[2 * i + 1] = -zi[i] * scale;
+        }
+    }
+
+    // Odd sizes: rebuild the Hermitian spectrum and run a conjugated forward transform
+    private void oddInverseRealTransform(double[] real, double[] imag, double[] output, FFTWorkspace workspace) {
+        int n = size;
+        double[] scratchReal = workspace.scratchReal(n);
+        double[] scratchImag = workspace.scratchImag(n);
+        scratchReal[0] = real[0];
+        scratchImag[0] = 0;
+        for (int k = 1; k <= n / 2; k++) {
+            scratchReal[k] = real[k];
+            scratchImag[k] = -imag[k];
+            scratchReal[n - k] = real[k];
+            scratchImag[n - k] = imag[k];
+        }
+        transform(scratchReal, scratchImag, workspace);
+        double scale = 1.0 / n;
+        for (int i = 0; i < n; i++) {
+            output[i] = scratchReal[i] * scale;
+        }
+    }
+
+    // Odd sizes have no even/odd packing, so run the full complex transform in scratch
+    private void oddRealTransform(double[] input, int offset, int length, double[] window,
+                                  double[] real, double[] imag, FFTWorkspace workspace) {
+        double[] scratchReal = workspace.scratchReal(size);
+        double[] scratchImag = workspace.scratchImag(size);
+        if (window == null) {
+            System.arraycopy(input, offset, scratchReal, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                scratchReal[i] = input[offset + i] * window[i];
+            }
+        }
+        Arrays.fill(scratchReal, length, size, 0);
+        Arrays.fill(scratchImag, 0, size, 0);
+        transform(scratchReal, scratchImag, workspace);
+        int bins = size / 2 + 1;
+        System.arraycopy(scratchReal, 0, real, 0, bins);
+        System.arraycopy(scratchImag, 0, imag, 0, bins);
+    }
+
+    // Runs a kernel on a transform of length m = N / stride, reading every
+    // stride-th entry of the size-N permutation and twiddle tables. The
+    // four-step, mixed-radix and Bluestein kernels only run at stride 1.
+    private void transform(double[] real, double[] imag, int m, int stride, Kernel kernel, FFTWorkspace workspace) {
+        if (m <= 1) {
+            return;
+        }
+        switch (kernel) {
+            case MIXED_RADIX:
+                mixedRadix(real, imag, workspace);
+                break;
+            case BLUESTEIN:
+                bluestein(real, imag, workspace);
+                break;
+            case FOUR_STEP:
+                FourStepFFT.transform(this, real, imag, workspace);
+                break;
+            case RADIX_4:
+                permute(real, imag, m, stride);
+                radix4(real, imag, m, stride);
+                break;
+            case SPLIT_RADIX:
+                splitRadix(real, imag, m, stride);
+                permute(real, imag, m, stride);
+                break;
+            case SIMD_RADIX_2:
+                permute(real, imag, m, stride);
+                simdRadix2(real, imag, m, stride);
+                break;
+            default:
+                permute(real, imag, m, stride);
+                radix2(real, imag, m, stride);
+        }
+    }
+
+    // Bit-reversal permutation of the first m entries
+    private void permute(double[] real, double[] imag, int m, int stride) {
+        int shift = Integer.numberOfTrailingZeros(stride);
+        for (int i = 0; i < m; i++) {
+            int j = bitReverse[i] >>> shift;
+            if (j > i) {
+                double tr = real[i];
+                real[i] = real[j];
+                real[j] = tr;
+                double ti = imag[i];
+                imag[i] = imag[j];
+                imag[j] = ti;
+            }
+        }
+    }
+
+    // Radix-2 decimation-in-time butterflies on bit-reversed input
+    private void radix2(double[] real, double[] imag, int m, int stride) {
+        for (int span = 2; span <= m; span *= 2) {
+            radix2Stage(real, imag, m, stride, span);
+        }
+    }
+
+    // Radix-2 butterflies with stages at least one vector wide run through
+    // VectorKernels; the narrow early stages stay scalar
+    private void simdRadix2(double[] real, double[] imag, int m, int stride) {
+        double[][] tables = stageTwiddles();
+        int lanes = VectorKernels.laneCount();
+        for (int span = 2; span <= m; span *= 2) {
+            int halfSize = span / 2;
+            if (halfSize >= lanes) {
+                VectorKernels.radix2Stage(real, imag, m, halfSize, tables[0], tables[1]);
+            } else {
+                radix2Stage(real, imag, m, stride, span);
+            }
+        }
+    }
+
+    // Stage twiddles W_span^j stored at index span/2 + j, so each stage reads a
+    // contiguous run; W_span^j = W_N^(j*N/span) covers every span up to N
+    private double[][] stageTwiddles() {
+        double[][] tables = stageTwiddles;
+        if (tables == null) {
+            double[] stageCos = new double[Math.max(size, 1)];
+            double[] stageSin = new double[Math.max(size, 1)];
+            for (int halfSize = 1; halfSize < size; halfSize *= 2) {
+                int step = size / (2 * halfSize);
+                for (int j = 0; j < halfSize; j++) {
+                    stageCos[halfSize + j] = cos[j * step];
+                    stageSin[halfSize + j] = sin[j * step];
+                }
+            }
+            tables = new double[][]{stageCos, stageSin};
+            stageTwiddles = tables;
+        }
+        return tables;
+    }
+
+    // One radix-2 stage combining pairs of span/2-point transforms
+    private void radix2Stage(double[] real, double[] imag, int m, int stride, int span) {
+        int halfSize = span / 2;
+        int step = stride * (m / span);
+        for (int i = 0; i < m; i += span) {
+            for (int j = 0; j < halfSize; j++) {
+                int even = i + j;
+                int odd = even + halfSize;
+                double wr = cos[j * step];
+                double wi = sin[j * step];
+                double tr = wr * real[odd] - wi * imag[odd];
+                double ti = wr * imag[odd] + wi * real[odd];
+                real[odd] = real[even] - tr;
+                imag[odd] = imag[even] - ti;
+                real[even] += tr;
+                imag[even] += ti;
+            }
+        }
+    }
+
+    // Radix-4 decimation-in-time butterflies on bit-reversed input. Each
+    // butterfly merges two radix-2 stages with three twiddle multiplies
+    // instead of four. An odd number of stages starts with one radix-2 pass.
+    private void radix4(double[] real, double[] imag, int m, int stride) {
+        int quarter = 1;
+        if (Integer.numberOfTrailingZeros(m) % 2 == 1) {
+            radix2Stage(real, imag, m, stride, 2);
+            quarter = 2;
+        }
+        for (; quarter * 4 <= m; quarter *= 4) {
+            int span = quarter * 4;
+            int step = stride * (m / span);
+            for (int i = 0; i < m; i += span) {
+                for (int j = 0; j < quarter; j++) {
+                    // Bit-reversed order stores sub-transforms 0, 2, 1, 3 at quarter offsets
+                    int p0 = i + j;
+                    int p2 = p0 + quarter;
+                    int p1 = p2 + quarter;
+                    int p3 = p1 + quarter;
+
+                    int k1 = j * step;
+                    double w1r = cos[k1];
+                    double w1i = sin[k1];
+                    double w2r = twiddleCos(2 * k1);
+                    double w2i = twiddleSin(2 * k1);
+                    double w3r = twiddleCos(3 * k1);
+                    double w3i = twiddleSin(3 * k1);
+
+                    double t0r = real[p0];
+                    double t0i = imag[p0];
+                    double t1r = w1r * real[p1] - w1i * imag[p1];
+                    double t1i = w1r * imag[p1] + w1i * real[p1];
+                    double t2r = w2r * real[p2] - w2i * imag[p2];
+                    double t2i = w2r * imag[p2] + w2i * real[p2];
+                    double t3r = w3r * real[p3] - w3i * imag[p3];
+                    double t3i = w3r * imag[p3] + w3i * real[p3];
+
+                    double sum02r = t0r + t2r;
+                    double sum02i = t0i + t2i;
+                    double dif02r = t0r - t2r;
+                    double dif02i = t0i - t2i;
+                    double sum13r = t1r + t3r;
+                    double sum13i = t1i + t3i;
+                    double dif13r = t1r - t3r;
+                    double dif13i = t1i - t3i;
+
+                    // Outputs 0..3 land at quarter offsets 0..3
+                    real[p0] = sum02r + sum13r;
+                    imag[p0] = sum02i + sum13i;
+                    real[p1] = sum02r - sum13r;
+                    imag[p1] = sum02i - sum13i;
+                    real[p2] = dif02r + dif13i;
+                    imag[p2] = dif02i - dif13r;
+                    real[p3] = dif02r - dif13i;
+                    imag[p3] = dif02i + dif13r;
+                }
+            }
+        }
+    }
+
+    // Split-radix decimation-in-frequency butterflies (Sorensen, Heideman and
+    // Burrus). Produces bit-reversed output, so the caller permutes afterwards.
+    private void splitRadix(double[] real, double[] imag, int m, int stride) {
+        // L-shaped butterflies: a radix-2 half and two twiddled radix-4 quarters per block
+        for (int n2 = m; n2 > 2; n2 /= 2) {
+            int n4 = n2 / 4;
+            int step = stride * (m / n2);
+            for (int j = 0; j < n4; j++) {
+                int k1 = j * step;
+                double cc1 = cos[k1];
+                double ss1 = sin[k1];
+                double cc3 = twiddleCos(3 * k1);
+                double ss3 = twiddleSin(3 * k1);
+                int start = j;
+                int distance = 2 * n2;
+                while (start < m - 1) {
+                    for (int i0 = start; i0 < m - 1; i0 += distance) {
+                        int i1 = i0 + n4;
+                        int i2 = i1 + n4;
+                        int i3 = i2 + n4;
+                        double r1 = real[i0] - real[i2];
+                        real[i0] += real[i2];
+                        double r2 = real[i1] - real[i3];
+                        real[i1] += real[i3];
+                        double s1 = imag[i0] - imag[i2];
+                        imag[i0] += imag[i2];
+                        double s2 = imag[i1] - imag[i3];
+                        imag[i1] += imag[i3];
+                        double s3 = r1 - s2;
+                        r1 += s2;
+                        s2 = r2 - s1;
+                        r2 += s1;
+                        real[i2] = r1 * cc1 + s2 * ss1;
+                        imag[i2] = r1 * ss1 - s2 * cc1;
+                        real[i3] = s3 * cc3 - r2 * ss3;
+                        imag[i3] = r2 * cc3 + s3 * ss3;
+                    }
+                    start = 2 * distance - n2 + j;
+                    distance *= 4;
+                }
+            }
+        }
+
+        // Final length-2 butterflies
+        int start = 0;
+        int distance = 4;
+        while (start < m - 1) {
+            for (int i0 = start; i0 < m; i0 += distance) {
+                int i1 = i0 + 1;
+                double r1 = real[i0];
+                real[i0] = r1 + real[i1];
+                real[i1] = r1 - real[i1];
+                double s1 = imag[i0];
+                imag[i0] = s1 + imag[i1];
+                imag[i1] = s1 - imag[i1];
+            }
+            start = 2 * distance - 2;
+            distance *= 4;
+        }
+    }
+
+    // Stockham autosort FFT over the radix sequence. Each pass reads one
+    // buffer and writes the other, so no permutation pass is needed.
+    private void mixedRadix(double[] real, double[] imag, FFTWorkspace workspace) {
+        int n = size;
+        double[] inReal = real;
+        double[] inImag = imag;
+        double[] outReal = workspace.kernelReal(n);
+        double[] outImag = workspace.kernelImag(n);
+
+        int length = n;
+        int stride = 1;
+        int offset = 0;
+        for (int radix : factors) {
+            int m = length / radix;
+            if (radix == 2) {
+                radix2Pass(inReal, inImag, outReal, outImag, m, stride, offset);
+            } else if (radix == 4) {
+                radix4Pass(inReal, inImag, outReal, outImag, m, stride, offset);
+            } else {
+                oddRadixPass(inReal, inImag, outReal, outImag, m, stride, offset, radix, workspace);
+            }
+            offset += length;
+            double[] swapReal = inReal;
+            double[] swapImag = inImag;
+            inReal = outReal;
+            inImag = outImag;
+            outReal = swapReal;
+            outImag = swapImag;
+            length = m;
+            stride *= radix;
+        }
+
+        if (inReal != real) {
+            System.arraycopy(inReal, 0, real, 0, n);
+            System.arraycopy(inImag, 0, imag, 0, n);
+        }
+    }
+
+    // Stockham radix-2 pass: m butterfly groups of stride elements each
+    private void radix2Pass(double[] inReal, double[] inImag, double[] outReal, double[] outImag,
+                            int m, int stride, int offset) {
+        int quarterSpan = stride * m;
+        for (int p = 0; p < m; p++) {
+            double wr = passTwiddleReal[offset + 2 * p + 1];
+            double wi = passTwiddleImag[offset + 2 * p + 1];
+            int in0 = stride * p;
+            int in1 = in0 + quarterSpan;
+            int out0 = 2 * stride * p;
+            int out1 = out0 + stride;
+            for (int q = 0; q < stride; q++) {
+                double ar = inReal[in0 + q];
+                double ai = inImag[in0 + q];
+                double br = inReal[in1 + q];
+                double bi = inImag[in1 + q];
+                outReal[out0 + q] = ar + br;
+                outImag[out0 + q] = ai + bi;
+                double dr = ar - br;
+                double di = ai - bi;
+                outReal[out1 + q] = wr * dr - wi * di;
+                outImag[out1 + q] = wr * di + wi * dr;
+            }
+        }
+    }
+
+    // Stockham radix-4 pass with three twiddle multiplies per butterfly
+    private void radix4Pass(double[] inReal, double[] inImag, double[] outReal, double[] outImag,
+                            int m, int stride, int offset) {
+        int quarterSpan = stride * m;
+        for (int p = 0; p < m; p++) {
+            int t = offset + 4 * p;
+            double w1r = passTwiddleReal[t + 1];
+            double w1i = passTwiddleImag[t + 1];
+            double w2r = passTwiddleReal[t + 2];
+            double w2i = passTwiddleImag[t + 2];
+            double w3r = passTwiddleReal[t + 3];
+            double w3i = passTwiddleImag[t + 3];
+            int in0 = stride * p;
+            int out0 = 4 * stride * p;
+            for (int q = 0; q < stride; q++) {
+                int i0 = in0 + q;
+                int i1 = i0 + quarterSpan;
+                int i2 = i1 + quarterSpan;
+                int i3 = i2 + quarterSpan;
+                double sum02r = inReal[i0] + inReal[i2];
+                double sum02i = inImag[i0] + inImag[i2];
+                double dif02r = inReal[i0] - inReal[i2];
+                double dif02i = inImag[i0] - inImag[i2];
+                double sum13r = inReal[i1] + inReal[i3];
+                double sum13i = inImag[i1] + inImag[i3];
+                double dif13r = inReal[i1] - inReal[i3];
+                double dif13i = inImag[i1] - inImag[i3];
+
+                int o0 = out0 + q;
+                int o1 = o0 + stride;
+                int o2 = o1 + stride;
+                int o3 = o2 + stride;
+                outReal[o0] = sum02r + sum13r;
+                outImag[o0] = sum02i + sum13i;
+                double b1r = dif02r + dif13i;
+                double b1i = dif02i - dif13r;
+                outReal[o1] = w1r * b1r - w1i * b1i;
+                outImag[o1] = w1r * b1i + w1i * b1r;
+                double b2r = sum02r - sum13r;
+                double b2i = sum02i - sum13i;
+                outReal[o2] = w2r * b2r - w2i * b2i;
+                outImag[o2] = w2r * b2i + w2i * b2r;
+                double b3r = dif02r - dif13i;
+                double b3i = dif02i + dif13r;
+                outReal[o3] = w3r * b3r - w3i * b3i;
+                outImag[o3] = w3r * b3i + w3i * b3r;
+            }
+        }
+    }
+
+    // Stockham pass for radix 3, 5 or 7 using a direct DFT on each butterfly.
+    // Conjugate-symmetric root pairs share one multiply pass per output pair.
+    private void oddRadixPass(double[] inReal, double[] inImag, double[] outReal, double[] outImag,
+                              int m, int stride, int offset, int radix, FFTWorkspace workspace) {
+        int span = stride * m;
+        int pairs = radix / 2;
+
+        // Roots of unity W_radix^j = W_N^(j*N/radix), read straight from the twiddle table
+        int rootStep = size / radix;
+        double[][] fold = workspace.fold();
+        double[] sumReal = fold[0];
+        double[] sumImag = fold[1];
+        double[] difReal = fold[2];
+        double[] difImag = fold[3];
+
+        for (int p = 0; p < m; p++) {
+            int t = offset + radix * p;
+            int in0 = stride * p;
+            int out0 = radix * stride * p;
+            for (int q = 0; q < stride; q++) {
+                int base = in0 + q;
+                double x0r = inReal[base];
+                double x0i = inImag[base];
+
+                // Fold inputs j and radix - j into sums and differences
+                double dcReal = x0r;
+                double dcImag = x0i;
+                for (int j = 1; j <= pairs; j++) {
+                    int a = base + j * span;
+                    int b = base + (radix - j) * span;
+                    sumReal[j] = inReal[a] + inReal[b];
+                    sumImag[j] = inImag[a] + inImag[b];
+                    difReal[j] = inReal[a] - inReal[b];
+                    difImag[j] = inImag[a] - inImag[b];
+                    dcReal += sumReal[j];
+                    dcImag += sumImag[j];
+                }
+                outReal[out0 + q] = dcReal;
+                outImag[out0 + q] = dcImag;
+
+                // Outputs k and radix - k share the cosine and sine partial sums
+                for (int k = 1; k <= pairs; k++) {
+                    double cr = x0r;
+                    double ci = x0i;
+                    double sr = 0;
+                    double si = 0;
+                    int exponent = 0;
+                    for (int j = 1; j <= pairs; j++) {
+                        exponent += k;
+                        if (exponent >= radix) {
+                            exponent -= radix;
+                        }
+                        double rootCos = cos[exponent * rootStep];
+                        double rootSin = sin[exponent * rootStep];
+                        cr += rootCos * sumReal[j];
+                        ci += rootCos * sumImag[j];
+                        sr += rootSin * difReal[j];
+                        si += rootSin * difImag[j];
+                    }
+                    // y_k = c + i*s applied as (cr - si, ci + sr); y_(radix-k) = (cr + si, ci - sr)
+                    double ykr = cr - si;
+                    double yki = ci + sr;
+                    double ymr = cr + si;
+                    double ymi = ci - sr;
+
+                    int ok = out0 + q + k * stride;
+                    int om = out0 + q + (radix - k) * stride;
+                    double wkr = passTwiddleReal[t + k];
+                    double wki = passTwiddleImag[t + k];
+                    double wmr = passTwiddleReal[t + radix - k];
+                    double wmi = passTwiddleImag[t + radix - k];
+                    outReal[ok] = wkr * ykr - wki * yki;
+                    outImag[ok] = wkr * yki + wki * ykr;
+                    outReal[om] = wmr * ymr - wmi * ymi;
+                    outImag[om] = wmr * ymi + wmi * ymr;
+                }
+            }
+        }
+    }
+
+    // Bluestein chirp-z FFT: X_k = w_k * sum_j (x_j * w_j) * conj(w_(k-j)), with the
+    // convolution done by a power-of-2 FFT of at least 2N - 1 points
+    private void bluestein(double[] real, double[] imag, FFTWorkspace workspace) {
+        int n = size;
+        int m = convolutionPlan.getSize();
+        double[] convReal = workspace.convolutionReal(m);
+        double[] convImag = workspace.convolutionImag(m);
+        for (int k = 0; k < n; k++) {
+            convReal[k] = real[k] * chirpCos[k] - imag[k] * chirpSin[k];
+            convImag[k] = real[k] * chirpSin[k] + imag[k] * chirpCos[k];
+        }
+        Arrays.fill(convReal, n, m, 0);
+        Arrays.fill(convImag, n, m, 0);
+        convolutionPlan.transform(convReal, convImag, workspace);
+
+        // Multiply by the chirp spectrum and conjugate, so a forward FFT acts as the inverse
+        for (int k = 0; k < m; k++) {
+            double br = chirpSpectrumReal[k];
+            double bi = chirpSpectrumImag[k];
+            double cr = convReal[k] * br - convImag[k] * bi;
+            double ci = convReal[k] * bi + convImag[k] * br;
+            convReal[k] = cr;
+            convImag[k] = -ci;
+        }
+        convolutionPlan.transform(convReal, convImag, workspace);
+
+        // Undo the conjugation, scale by 1/m and apply the output chirp
+        double scale = 1.0 / m;
+        for (int k = 0; k < n; k++) {
+            double cr = convReal[k] * scale;
+            double ci = -convImag[k] * scale;
+            real[k] = cr * chirpCos[k] - ci * chirpSin[k];
+            imag[k] = cr * chirpSin[k] + ci * chirpCos[k];
+        }
+    }
+
+    // Twiddle cosine for an index in [0, N); power-of-2 tables use W^(k + N/2) = -W^k
+    double twiddleCos(int k) {
+        int half = size / 2;
+        return k < cos.length ? cos[k] : -cos[k - half];
+    }
+
+    // Twiddle sine for an index in [0, N); power-of-2 tables use W^(k + N/2) = -W^k
+    double twiddleSin(int k) {
+        int half = size / 2;
+        return k < sin.length ? sin[k] : -sin[k - half];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,293 @@
+package simulation.software.codebase;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+
+// Measured kernel choices per transform size ("wisdom"). tune() times every
+// kernel that can handle a size on this machine and records the fastest;
+// FFTPlan.selectKernel() consults the record before its size heuristics. The
+// record is loaded once from the wisdom file at first use and written back by
+// save(), so later runs on the same host plan for free. The file is a
+// properties file of size=KERNEL lines plus a host fingerprint (architecture,
+// core count, SIMD availability); a file written on a different host is
+// ignored. The location defaults to ~/.sweepgen/fft-wisdom.properties and can
+// be changed with -Dsweepgen.fft.wisdom=<path>, or set empty to disable it.
+public class FFTWisdom {
+    private static final String HOST_KEY = "host";
+
+    // Timed rounds per kernel; the first WARMUP_ROUNDS only warm up the JIT
+    private static final int ROUNDS = 9;
+    private static final int WARMUP_ROUNDS = 3;
+
+    // Points transformed per timed round, so small sizes repeat enough to be measurable
+    private static final int POINTS_PER_ROUND = 1 << 18;
+
+    // Default sizes for the command-line tuner: powers of 2 from 2^4 to 2^20
+    private static final int MIN_TUNED_SIZE = 1 << 4;
+    private static final int MAX_TUNED_SIZE = 1 << 20;
+
+    // Immutable snapshot swapped on every update so lookups need no locking
+    private static final class Table {
+        final int[] sizes;
+        final FFTPlan.Kernel[] kernels;
+
+        Table(int[] sizes, FFTPlan.Kernel[] kernels) {
+            this.sizes = sizes;
+            this.kernels = kernels;
+        }
+    }
+
+    private static volatile Table table = read(defaultFile());
+
+    private FFTWisdom() {
+    }
+
+    // Wisdom file location, or null if disabled
+    public static Path defaultFile() {
+        String configured = System.getProperty("sweepgen.fft.wisdom");
+        if (configured != null) {
+            return configured.isEmpty() ? null : Path.of(configured);
+        }
+        return Path.of(System.getProperty("user.home"), ".sweepgen", "fft-wisdom.properties");
+    }
+
+    // Identifies the machine configuration the measurements are valid for
+    public static String hostFingerprint() {
+        return System.getProperty("os.arch") + "/" + Runtime.getRuntime().availableProcessors() + "cpu/"
+                + (SpectralMath.isVectorized() ? "simd" : "scalar");
+    }
+
+    // Measured kernel for a size, or null if the size has not been tuned.
+    // Binary search over a snapshot; no locking or allocation.
+    public static FFTPlan.Kernel lookup(int size) {
+        Table current = table;
+        int index = Arrays.binarySearch(current.sizes, size);
+        return index >= 0 ? current.kernels[index] : null;
+    }
+
+    // Number of tuned sizes
+    public static int size() {
+        return table.sizes.length;
+    }
+
+    // Times each candidate kernel on a transform of the given size, records the
+    // fastest and returns it. Sizes with a single applicable kernel are not timed.
+    public static FFTPlan.Kernel tune(int size) {
+        FFTPlan plan = FFTPlan.forSize(size);
+        FFTPlan.Kernel[] candidates = candidates(size);
+        if (candidates.length < 2) {
+            return FFTPlan.defaultKernel(size);
+        }
+
+        Random random = new Random(size);
+        double[] sourceReal = new double[size];
+        double[] sourceImag = new double[size];
+        for (int i = 0; i < size; i++) {
+            sourceReal[i] = random.nextDouble() - 0.5;
+            sourceImag[i] = random.nextDouble() - 0.5;
+        }
+        double[] real = new double[size];
+        double[] imag = new double[size];
+        FFTWorkspace workspace = new FFTWorkspace();
+
+        FFTPlan.Kernel best = null;
+        long bestTime = Long.MAX_VALUE;
+        for (FFTPlan.Kernel kernel : candidates) {
+            long time = measure(plan, kernel, sourceReal, sourceImag, real, imag, workspace);
+            if (time < bestTime) {
+                bestTime = time;
+                best = kernel;
+            }
+        }
+        record(size, best);
+        return best;
+    }
+
+    // Best per-transform time in nanoseconds over the timed rounds
+    private static long measure(FFTPlan plan, FFTPlan.Kernel kernel, double[] sourceReal, double[] sourceImag,
+                                double[] real, double[] imag, FFTWorkspace workspace) {
+        int size = plan.getSize();
+        int repetitions = Math.max(1, POINTS_PER_ROUND / size);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < repetitions; r++) {
+                // Fresh input each time; transforming in place repeatedly would overflow
+                System.arraycopy(sourceReal, 0, real, 0, size);
+                System.arraycopy(sourceImag, 0, imag, 0, size);
+                plan.transform(real, imag, kernel, workspace);
+            }
+            long elapsed = (System.nanoTime() - start) / repetitions;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+
+    // Kernels that can transform a size on this machine. Power-of-2 sizes leave
+    // out MIXED_RADIX, which the strided half-size path of real transforms cannot run.
+    private static FFTPlan.Kernel[] candidates(int size) {
+        return Arrays.stream(FFTPlan.Kernel.values())
+                .filter(kernel -> applies(size, kernel))
+                .toArray(FFTPlan.Kernel[]::new);
+    }
+
+    private static boolean applies(int size, FFTPlan.Kernel kernel) {
+        boolean powerOfTwo = size > 1 && Integer.bitCount(size) == 1;
+        switch (kernel) {
+            case MIXED_RADIX:
+                return !powerOfTwo && FFTPlan.isSmooth(size);
+            case BLUESTEIN:
+                return !FFTPlan.isSmooth(size);
+            case SIMD_RADIX_2:
+                return powerOfTwo && SpectralMath.isVectorized();
+            case FOUR_STEP:
+                return powerOfTwo && size >= 4;
+            default:
+                return powerOfTwo;
+        }
+    }
+
+    // Stores a kernel choice for a size, replacing any earlier one
+    public static synchronized void record(int size, FFTPlan.Kernel kernel) {
+        if (size < 1 || kernel == null || !applies(size, kernel)) {
+            throw new IllegalArgumentException(kernel + " cannot transform size " + size);
+        }
+        TreeMap<Integer, FFTPlan.Kernel> entries = entries();
+        entries.put(size, kernel);
+        table = toTable(entries);
+    }
+
+    // Forgets all measurements; selection falls back to the heuristics
+    public static synchronized void clear() {
+        table = toTable(new TreeMap<>());
+    }
+
+    private static TreeMap<Integer, FFTPlan.Kernel> entries() {
+        Table current = table;
+        TreeMap<Integer, FFTPlan.Kernel> entries = new TreeMap<>();
+        for (int i = 0; i < current.sizes.length; i++) {
+            entries.put(current.sizes[i], current.kernels[i]);
+        }
+        return entries;
+    }
+
+    private static Table toTable(TreeMap<Integer, FFTPlan.Kernel> entries) {
+        int[] sizes = new int[entries.size()];
+        FFTPlan.Kernel[] kernels = new FFTPlan.Kernel[entries.size()];
+        int i = 0;
+        for (Map.Entry<Integer, FFTPlan.Kernel> entry : entries.entrySet()) {
+            sizes[i] = entry.getKey();
+            kernels[i] = entry.getValue();
+            i++;
+        }
+        return new Table(sizes, kernels);
+    }
+
+    // Reads a wisdom file; entries that no longer apply on this machine are
+    // skipped. A missing file, or one from another host, yields no entries.
+    private static Table read(Path file) {
+        TreeMap<Integer, FFTPlan.Kernel> entries = new TreeMap<>();
+        if (file == null || !Files.isRegularFile(file)) {
+            return toTable(entries);
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            // Unreadable, not UTF-8, or holding a malformed unicode escape
+            System.err.println("Error reading FFT wisdom file: " + e.getMessage());
+            return toTable(entries);
+        }
+        if (!hostFingerprint().equals(properties.getProperty(HOST_KEY))) {
+            System.err.println("Ignoring FFT wisdom measured on another host: " + file);
+            return toTable(entries);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            if (key.equals(HOST_KEY)) {
+                continue;
+            }
+            try {
+                int size = Integer.parseInt(key);
+                FFTPlan.Kernel kernel = FFTPlan.Kernel.valueOf(properties.getProperty(key).trim());
+                if (size > 0 && applies(size, kernel)) {
+                    entries.put(size, kernel);
+                }
+            } catch (IllegalArgumentException e) {
+                // Malformed line; skip it
+            }
+        }
+        return toTable(entries);
+    }
+
+    // Replaces the current measurements with those in the wisdom file, e.g. after
+    // another process has tuned. Returns false if there is no file to read.
+    public static synchronized boolean reload() {
+        Path file = defaultFile();
+        if (file == null || !Files.isRegularFile(file)) {
+            return false;
+        }
+        table = read(file);
+        return true;
+    }
+
+    // Writes the current measurements to the wisdom file. Returns false on error.
+    public static boolean save() {
+        Path file = defaultFile();
+        return file != null && save(file);
+    }
+
+    public static synchronized boolean save(Path file) {
+        Properties properties = new Properties();
+        properties.setProperty(HOST_KEY, hostFingerprint());
+        Table current = table;
+        for (int i = 0; i < current.sizes.length; i++) {
+            properties.setProperty(Integer.toString(current.sizes[i]), current.kernels[i].name());
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                properties.store(writer, "FFT kernel wisdom");
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing FFT wisdom file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Tunes the sizes given as arguments (default: powers of 2 from 16 to 2^20)
+    // and saves the results to the wisdom file
+    public static void main(String[] args) {
+        int[] sizes;
+        if (args.length > 0) {
+            sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        } else {
+            int count = Integer.numberOfTrailingZeros(MAX_TUNED_SIZE) - Integer.numberOfTrailingZeros(MIN_TUNED_SIZE) + 1;
+            sizes = new int[count];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = MIN_TUNED_SIZE << i;
+            }
+        }
+        for (int size : sizes) {
+            FFTPlan.Kernel kernel = tune(size);
+            System.out.printf("%8d  %s (heuristic %s)%n", size, kernel, FFTPlan.defaultKernel(size));
+        }
+        Path file = defaultFile();
+        if (file != null && save(file)) {
+            System.out.println("Wrote " + file);
+        }
+    }
+}
\ No newline at end of file
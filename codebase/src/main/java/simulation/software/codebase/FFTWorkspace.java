@@ -0,0 +1,130 @@
+package simulation.software.codebase;
+
+// Reusable scratch buffers for FFTPlan, FloatFFTPlan and FFTCalculator. Passing
+// the same workspace to repeated calls lets steady-state updates run without
+// allocating: each buffer grows to the largest size seen and is then reused.
+// A workspace must not be shared by threads running at the same time; use one
+// per task, or forCurrentThread() on threads that are not ForkJoinPool workers.
+public class FFTWorkspace {
+    private static final ThreadLocal<FFTWorkspace> PER_THREAD = ThreadLocal.withInitial(FFTWorkspace::new);
+
+    // Stockham ping-pong buffers for the mixed-radix kernels
+    private double[] kernelReal;
+    private double[] kernelImag;
+
+    // Bluestein convolution buffers
+    private double[] convolutionReal;
+    private double[] convolutionImag;
+
+    // Odd-length real transforms and inverse unpacking
+    private double[] scratchReal;
+    private double[] scratchImag;
+
+    // Half-spectrum bins for FFTCalculator
+    private double[] binReal;
+    private double[] binImag;
+
+    // Single-precision counterparts
+    private float[] floatKernelReal;
+    private float[] floatKernelImag;
+    private float[] floatScratchReal;
+    private float[] floatScratchImag;
+    private float[] floatSamples;
+    private float[] floatBinReal;
+    private float[] floatBinImag;
+
+    // Fold temporaries for the radix-3, 5 and 7 butterflies (at most 3 root pairs)
+    private double[][] fold;
+    private float[][] floatFold;
+
+    public FFTWorkspace() {
+    }
+
+    // Workspace owned by the calling thread
+    public static FFTWorkspace forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    private static double[] grow(double[] buffer, int length) {
+        return buffer != null && buffer.length >= length ? buffer : new double[length];
+    }
+
+    private static float[] grow(float[] buffer, int length) {
+        return buffer != null && buffer.length >= length ? buffer : new float[length];
+    }
+
+    double[] kernelReal(int length) {
+        return kernelReal = grow(kernelReal, length);
+    }
+
+    double[] kernelImag(int length) {
+        return kernelImag = grow(kernelImag, length);
+    }
+
+    double[] convolutionReal(int length) {
+        return convolutionReal = grow(convolutionReal, length);
+    }
+
+    double[] convolutionImag(int length) {
+        return convolutionImag = grow(convolutionImag, length);
+    }
+
+    double[] scratchReal(int length) {
+        return scratchReal = grow(scratchReal, length);
+    }
+
+    double[] scratchImag(int length) {
+        return scratchImag = grow(scratchImag, length);
+    }
+
+    double[] binReal(int length) {
+        return binReal = grow(binReal, length);
+    }
+
+    double[] binImag(int length) {
+        return binImag = grow(binImag, length);
+    }
+
+    // sumReal, sumImag, difReal and difImag for FFTPlan's odd-radix passes
+    double[][] fold() {
+        if (fold == null) {
+            fold = new double[4][4];
+        }
+        return fold;
+    }
+
+    float[][] floatFold() {
+        if (floatFold == null) {
+            floatFold = new float[4][4];
+        }
+        return floatFold;
+    }
+
+    float[] floatKernelReal(int length) {
+        return floatKernelReal = grow(floatKernelReal, length);
+    }
+
+    float[] floatKernelImag(int length) {
+        return floatKernelImag = grow(floatKernelImag, length);
+    }
+
+    float[] floatScratchReal(int length) {
+        return floatScratchReal = grow(floatScratchReal, length);
+    }
+
+    float[] floatScratchImag(int length) {
+        return floatScratchImag = grow(floatScratchImag, length);
+    }
+
+    float[] floatSamples(int length) {
+        return floatSamples = grow(floatSamples, length);
+    }
+
+    float[] floatBinReal(int length) {
+        return floatBinReal = grow(floatBinReal, length);
+    }
+
+    float[] floatBinImag(int length) {
+        return floatBinImag = grow(floatBinImag, length);
+    }
+}
\ No newline at end of file
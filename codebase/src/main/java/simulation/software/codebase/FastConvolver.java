@@ -0,0 +1,141 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+
+// Streaming FIR convolution in the frequency domain. The kernel spectrum is
+// computed once; each block is transformed with a cached real FFT plan,
+// multiplied and transformed back, so a kernel of M taps costs O(log M) per
+// output sample instead of O(M). Blocks of any length can be fed and the
+// output lines up sample for sample with the input. Not thread-safe.
+public class FastConvolver {
+    public enum Mode { OVERLAP_ADD, OVERLAP_SAVE }
+
+    private final Mode mode;
+    private final int kernelLength;
+    private final int fftSize;
+
+    // New input samples consumed per transform
+    private final int hop;
+
+    private final FFTPlan plan;
+    private final double[] kernelReal;
+    private final double[] kernelImag;
+
+    // Overlap-add: convolution tail carried into the next block.
+    // Overlap-save: the last kernelLength - 1 input samples.
+    private final double[] carry;
+
+    // Per-transform scratch, reused across blocks
+    private final FFTWorkspace workspace = new FFTWorkspace();
+    private final double[] frame;
+    private final double[] real;
+    private final double[] imag;
+    private final double[] result;
+
+    public FastConvolver(double[] kernel, Mode mode) {
+        if (kernel == null || kernel.length == 0 || mode == null) {
+            throw new IllegalArgumentException("Invalid convolution kernel or mode");
+        }
+        this.mode = mode;
+        this.kernelLength = kernel.length;
+
+        // Transforms about four times the kernel length balance FFT cost against overlap waste
+        fftSize = Math.max(64, Integer.highestOneBit(4 * kernelLength - 1) << 1);
+        hop = fftSize - kernelLength + 1;
+        plan = FFTPlan.forSize(fftSize);
+
+        kernelReal = new double[fftSize / 2 + 1];
+        kernelImag = new double[fftSize / 2 + 1];
+        plan.realTransform(kernel, kernelReal, kernelImag);
+
+        carry = new double[kernelLength - 1];
+        frame = new double[fftSize];
+        real = new double[fftSize / 2 + 1];
+        imag = new double[fftSize / 2 + 1];
+        result = new double[fftSize];
+    }
+
+    // Full linear convolution of signal and kernel (length N + M - 1)
+    public static double[] convolve(double[] signal, double[] kernel) {
+        if (signal == null || signal.length == 0 || kernel == null || kernel.length == 0) {
+            return new double[0];
+        }
+        FastConvolver convolver = new FastConvolver(kernel, Mode.OVERLAP_ADD);
+        return convolver.process(Arrays.copyOf(signal, signal.length + kernel.length - 1));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    // Filters the next block of the stream; returns one output sample per input sample
+    public double[] process(double[] block) {
+        double[] output = new double[block.length];
+        process(block, 0, block.length, output, 0);
+        return output;
+    }
+
+    // Filters count samples of input starting at inputOffset into output at outputOffset
+    public void process(double[] input, int inputOffset, int count, double[] output, int outputOffset) {
+        for (int done = 0; done < count; ) {
+            int chunk = Math.min(hop, count - done);
+            if (mode == Mode.OVERLAP_ADD) {
+                overlapAdd(input, inputOffset + done, chunk, output, outputOffset + done);
+            } else {
+                overlapSave(input, inputOffset + done, chunk, output, outputOffset + done);
+            }
+            done += chunk;
+        }
+    }
+
+    // Clears the stream state, as if no samples had been processed
+    public void reset() {
+        Arrays.fill(carry, 0);
+    }
+
+    // Zero-padded chunk convolved in full; the first M - 1 outputs receive the previous tail
+    private void overlapAdd(double[] input, int offset, int chunk, double[] output, int outputOffset) {
+        System.arraycopy(input, offset, frame, 0, chunk);
+        Arrays.fill(frame, chunk, fftSize, 0);
+        filterFrame();
+
+        int tail = kernelLength - 1;
+        for (int i = 0; i < tail; i++) {
+            result[i] += carry[i];
+        }
+        System.arraycopy(result, 0, output, outputOffset, chunk);
+
+        // Everything past the chunk is the new tail: result[chunk .. chunk + M - 2]
+        System.arraycopy(result, chunk, carry, 0, tail);
+    }
+
+    // Previous M - 1 inputs followed by the chunk; outputs wrapped by the circular
+    // convolution fall in the first M - 1 slots and are discarded
+    private void overlapSave(double[] input, int offset, int chunk, double[] output, int outputOffset) {
+        int history = kernelLength - 1;
+        System.arraycopy(carry, 0, frame, 0, history);
+        System.arraycopy(input, offset, frame, history, chunk);
+        Arrays.fill(frame, history + chunk, fftSize, 0);
+        filterFrame();
+        System.arraycopy(result, history, output, outputOffset, chunk);
+
+        // Keep the newest M - 1 samples of the frame as the next history
+        System.arraycopy(frame, chunk, carry, 0, history);
+    }
+
+    // result = IFFT(FFT(frame) * kernel spectrum)
+    private void filterFrame() {
+        plan.realTransform(frame, 0, null, real, imag, workspace);
+        for (int k = 0; k <= fftSize / 2; k++) {
+            double xr = real[k];
+            double xi = imag[k];
+            real[k] = xr * kernelReal[k] - xi * kernelImag[k];
+            imag[k] = xr * kernelImag[k] + xi * kernelReal[k];
+        }
+        plan.inverseRealTransform(real, imag, result, workspace);
+    }
+}
\ No newline at end of file
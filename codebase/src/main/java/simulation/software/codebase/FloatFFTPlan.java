@@ -0,0 +1,377 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Single-precision FFT for sizes whose only prime factors are 2, 3, 5 and 7.
+// Uses the same Stockham autosort passes as FFTPlan's mixed-radix kernel on
+// float arrays, halving memory traffic and doubling the SIMD lane count.
+public class FloatFFTPlan {
+    // Upper bound on the number of transform sizes kept in the plan cache
+    private static final int MAX_CACHED_PLANS = 16;
+
+    // Least-recently-used cache of plans keyed by transform size
+    private static final Map<Integer, FloatFFTPlan> CACHE = new LinkedHashMap<Integer, FloatFFTPlan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, FloatFFTPlan> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+
+    // Roots of unity W_r^j for the odd radices, indexed by radix then j
+    private static final float[][] ROOT_COS = new float[8][];
+    private static final float[][] ROOT_SIN = new float[8][];
+
+    static {
+        for (int radix : new int[]{3, 5, 7}) {
+            ROOT_COS[radix] = new float[radix];
+            ROOT_SIN[radix] = new float[radix];
+            for (int j = 0; j < radix; j++) {
+                ROOT_COS[radix][j] = (float) Math.cos(-2 * Math.PI * j / radix);
+                ROOT_SIN[radix][j] = (float) Math.sin(-2 * Math.PI * j / radix);
+            }
+        }
+    }
+
+    // Lock-free lookaside in front of the cache, as in FFTPlan
+    private static final FloatFFTPlan[] RECENT = new FloatFFTPlan[64];
+
+    private final int size;
+    private final int[] factors;
+
+    // Per-pass twiddles W_length^(p*k), laid out pass by pass with radix entries per p
+    private final float[] passTwiddleReal;
+    private final float[] passTwiddleImag;
+
+    // Post-twiddles W_N^k for the real-input path, k <= N/4
+    private final float[] postCos;
+    private final float[] postSin;
+
+    private FloatFFTPlan(int size, int[] factors) {
+        this.size = size;
+        this.factors = factors;
+
+        // Twiddles are evaluated in double precision and rounded once
+        int total = 0;
+        int length = size;
+        for (int radix : factors) {
+            total += length;
+            length /= radix;
+        }
+        passTwiddleReal = new float[total];
+        passTwiddleImag = new float[total];
+        int offset = 0;
+        length = size;
+        int stride = 1;
+        for (int radix : factors) {
+            int m = length / radix;
+            for (int p = 0; p < m; p++) {
+                for (int k = 0; k < radix; k++) {
+                    double angle = -2 * Math.PI * ((long) p * k * stride % size) / size;
+                    passTwiddleReal[offset] = (float) Math.cos(angle);
+                    passTwiddleImag[offset] = (float) Math.sin(angle);
+                    offset++;
+                }
+            }
+            length = m;
+            stride *= radix;
+        }
+
+        int postLength = size / 4 + 1;
+        postCos = new float[postLength];
+        postSin = new float[postLength];
+        for (int k = 0; k < postLength; k++) {
+            double angle = -2 * Math.PI * k / size;
+            postCos[k] = (float) Math.cos(angle);
+            postSin[k] = (float) Math.sin(angle);
+        }
+    }
+
+    // Whether a single-precision plan exists for this size
+    public static boolean supportsSize(int size) {
+        return size >= 1 && FFTPlan.isSmooth(size);
+    }
+
+    // Returns the shared plan for a transform size
+    public static FloatFFTPlan forSize(int size) {
+        FloatFFTPlan recent = size >= 1 ? RECENT[FFTPlan.recentSlot(size)] : null;
+        if (recent != null && recent.size == size) {
+            return recent;
+        }
+        int[] factors = size >= 1 ? FFTPlan.factorize(size) : null;
+        if (factors == null) {
+            throw new IllegalArgumentException("Single-precision FFT needs a size with prime factors 2, 3, 5, 7: " + size);
+        }
+        synchronized (CACHE) {
+            FloatFFTPlan plan = CACHE.get(size);
+            if (plan == null) {
+                plan = new FloatFFTPlan(size, factors);
+                CACHE.put(size, plan);
+            }
+            RECENT[FFTPlan.recentSlot(size)] = plan;
+            return plan;
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // In-place forward FFT on split real/imaginary arrays
+    public void transform(float[] real, float[] imag) {
+        transform(real, imag, new FFTWorkspace());
+    }
+
+    // Same as above with the ping-pong buffers taken from workspace
+    public void transform(float[] real, float[] imag, FFTWorkspace workspace) {
+        int n = size;
+        if (n <= 1) {
+            return;
+        }
+        float[] inReal = real;
+        float[] inImag = imag;
+        float[] outReal = workspace.floatKernelReal(n);
+        float[] outImag = workspace.floatKernelImag(n);
+        boolean vectorized = SpectralMath.isVectorized();
+
+        int length = n;
+        int stride = 1;
+        int offset = 0;
+        for (int radix : factors) {
+            int m = length / radix;
+            if (radix == 4 && vectorized && stride >= VectorKernels.floatLaneCount()) {
+                VectorKernels.radix4Pass(inReal, inImag, outReal, outImag, m, stride,
+                        passTwiddleReal, passTwiddleImag, offset);
+            } else if (radix == 4) {
+                radix4Pass(inReal, inImag, outReal, outImag, m, stride, offset);
+            } else if (radix == 2) {
+                radix2Pass(inReal, inImag, outReal, outImag, m, stride, offset);
+            } else {
+                oddRadixPass(inReal, inImag, outReal, outImag, m, stride, offset, radix, workspace);
+            }
+            offset += length;
+            float[] swapReal = inReal;
+            float[] swapImag = inImag;
+            inReal = outReal;
+            inImag = outImag;
+            outReal = swapReal;
+            outImag = swapImag;
+            length = m;
+            stride *= radix;
+        }
+
+        if (inReal != real) {
+            System.arraycopy(inReal, 0, real, 0, n);
+            System.arraycopy(inImag, 0, imag, 0, n);
+        }
+    }
+
+    // Forward FFT of N real samples; writes bins 0..N/2 into real and imag.
+    // Even sizes pack the samples into an N/2-point complex transform.
+    public void realTransform(float[] input, float[] real, float[] imag) {
+        realTransform(input, real, imag, new FFTWorkspace());
+    }
+
+    // Same as above with scratch taken from workspace
+    public void realTransform(float[] input, float[] real, float[] imag, FFTWorkspace workspace) {
+        int n = size;
+        int half = n / 2;
+        int length = Math.min(input.length, n);
+        if (n < 2 || n % 2 == 1) {
+            float[] scratchReal = workspace.floatScratchReal(n);
+            float[] scratchImag = workspace.floatScratchImag(n);
+            System.arraycopy(input, 0, scratchReal, 0, length);
+            Arrays.fill(scratchReal, length, n, 0);
+            Arrays.fill(scratchImag, 0, n, 0);
+            transform(scratchReal, scratchImag, workspace);
+            System.arraycopy(scratchReal, 0, real, 0, half + 1);
+            System.arraycopy(scratchImag, 0, imag, 0, half + 1);
+            return;
+        }
+
+        // Pack even samples into the real part and odd samples into the imaginary part
+        for (int i = 0; i < half; i++) {
+            int even = 2 * i;
+            real[i] = even < length ? input[even] : 0;
+            imag[i] = even + 1 < length ? input[even + 1] : 0;
+        }
+        forSize(half).transform(real, imag, workspace);
+
+        // Post-twiddle, pairing bins k and N/2 - k (see FFTPlan.realTransform)
+        float z0r = real[0];
+        float z0i = imag[0];
+        real[0] = z0r + z0i;
+        imag[0] = 0;
+        real[half] = z0r - z0i;
+        imag[half] = 0;
+        for (int k = 1; k <= half / 2; k++) {
+            int mirror = half - k;
+            float ar = real[k];
+            float ai = imag[k];
+            float br = real[mirror];
+            float bi = imag[mirror];
+
+            float er = 0.5f * (ar + br);
+            float ei = 0.5f * (ai - bi);
+            float or = 0.5f * (ai + bi);
+            float oi = -0.5f * (ar - br);
+
+            float wr = postCos[k];
+            float wi = postSin[k];
+            float tr = wr * or - wi * oi;
+            float ti = wr * oi + wi * or;
+
+            real[k] = er + tr;
+            imag[k] = ei + ti;
+            real[mirror] = er - tr;
+            imag[mirror] = ti - ei;
+        }
+    }
+
+    private void radix2Pass(float[] inReal, float[] inImag, float[] outReal, float[] outImag,
+                            int m, int stride, int offset) {
+        int quarterSpan = stride * m;
+        for (int p = 0; p < m; p++) {
+            float wr = passTwiddleReal[offset + 2 * p + 1];
+            float wi = passTwiddleImag[offset + 2 * p + 1];
+            int in0 = stride * p;
+            int in1 = in0 + quarterSpan;
+            int out0 = 2 * stride * p;
+            int out1 = out0 + stride;
+            for (int q = 0; q < stride; q++) {
+                float ar = inReal[in0 + q];
+                float ai = inImag[in0 + q];
+                float br = inReal[in1 + q];
+                float bi = inImag[in1 + q];
+                outReal[out0 + q] = ar + br;
+                outImag[out0 + q] = ai + bi;
+                float dr = ar - br;
+                float di = ai - bi;
+                outReal[out1 + q] = wr * dr - wi * di;
+                outImag[out1 + q] = wr * di + wi * dr;
+            }
+        }
+    }
+
+    private void radix4Pass(float[] inReal, float[] inImag, float[] outReal, float[] outImag,
+                            int m, int stride, int offset) {
+        int quarterSpan = stride * m;
+        for (int p = 0; p < m; p++) {
+            int t = offset + 4 * p;
+            float w1r = passTwiddleReal[t + 1];
+            float w1i = passTwiddleImag[t + 1];
+            float w2r = passTwiddleReal[t + 2];
+            float w2i = passTwiddleImag[t + 2];
+            float w3r = passTwiddleReal[t + 3];
+            float w3i = passTwiddleImag[t + 3];
+            int in0 = stride * p;
+            int out0 = 4 * stride * p;
+            for (int q = 0; q < stride; q++) {
+                int i0 = in0 + q;
+                int i1 = i0 + quarterSpan;
+                int i2 = i1 + quarterSpan;
+                int i3 = i2 + quarterSpan;
+                float sum02r = inReal[i0] + inReal[i2];
+                float sum02i = inImag[i0] + inImag[i2];
+                float dif02r = inReal[i0] - inReal[i2];
+                float dif02i = inImag[i0] - inImag[i2];
+                float sum13r = inReal[i1] + inReal[i3];
+                float sum13i = inImag[i1] + inImag[i3];
+                float dif13r = inReal[i1] - inReal[i3];
+                float dif13i = inImag[i1] - inImag[i3];
+
+                int o0 = out0 + q;
+                int o1 = o0 + stride;
+                int o2 = o1 + stride;
+                int o3 = o2 + stride;
+                outReal[o0] = sum02r + sum13r;
+                outImag[o0] = sum02i + sum13i;
+                float b1r = dif02r + dif13i;
+                float b1i = dif02i - dif13r;
+                outReal[o1] = w1r * b1r - w1i * b1i;
+                outImag[o1] = w1r * b1i + w1i * b1r;
+                float b2r = sum02r - sum13r;
+                float b2i = sum02i - sum13i;
+                outReal[o2] = w2r * b2r - w2i * b2i;
+                outImag[o2] = w2r * b2i + w2i * b2r;
+                float b3r = dif02r - dif13i;
+                float b3i = dif02i + dif13r;
+                outReal[o3] = w3r * b3r - w3i * b3i;
+                outImag[o3] = w3r * b3i + w3i * b3r;
+            }
+        }
+    }
+
+    private void oddRadixPass(float[] inReal, float[] inImag, float[] outReal, float[] outImag,
+                              int m, int stride, int offset, int radix, FFTWorkspace workspace) {
+        int span = stride * m;
+        int pairs = radix / 2;
+        float[] rootCos = ROOT_COS[radix];
+        float[] rootSin = ROOT_SIN[radix];
+        float[][] fold = workspace.floatFold();
+        float[] sumReal = fold[0];
+        float[] sumImag = fold[1];
+        float[] difReal = fold[2];
+        float[] difImag = fold[3];
+
+        for (int p = 0; p < m; p++) {
+            int t = offset + radix * p;
+            int in0 = stride * p;
+            int out0 = radix * stride * p;
+            for (int q = 0; q < stride; q++) {
+                int base = in0 + q;
+                float x0r = inReal[base];
+                float x0i = inImag[base];
+
+                float dcReal = x0r;
+                float dcImag = x0i;
+                for (int j = 1; j <= pairs; j++) {
+                    int a = base + j * span;
+                    int b = base + (radix - j) * span;
+                    sumReal[j] = inReal[a] + inReal[b];
+                    sumImag[j] = inImag[a] + inImag[b];
+                    difReal[j] = inReal[a] - inReal[b];
+                    difImag[j] = inImag[a] - inImag[b];
+                    dcReal += sumReal[j];
+                    dcImag += sumImag[j];
+                }
+                outReal[out0 + q] = dcReal;
+                outImag[out0 + q] = dcImag;
+
+                for (int k = 1; k <= pairs; k++) {
+                    float cr = x0r;
+                    float ci = x0i;
+                    float sr = 0;
+                    float si = 0;
+                    int exponent = 0;
+                    for (int j = 1; j <= pairs; j++) {
+                        exponent += k;
+                        if (exponent >= radix) {
+                            exponent -= radix;
+                        }
+                        cr += rootCos[exponent] * sumReal[j];
+                        ci += rootCos[exponent] * sumImag[j];
+                        sr += rootSin[exponent] * difReal[j];
+                        si += rootSin[exponent] * difImag[j];
+                    }
+                    float ykr = cr - si;
+                    float yki = ci + sr;
+                    float ymr = cr + si;
+                    float ymi = ci - sr;
+
+                    int ok = out0 + q + k * stride;
+                    int om = out0 + q + (radix - k) * stride;
+                    float wkr = passTwiddleReal[t + k];
+                    float wki = passTwiddleImag[t + k];
+                    float wmr = passTwiddleReal[t + radix - k];
+                    float wmi = passTwiddleImag[t + radix - k];
+                    outReal[ok] = wkr * ykr - wki * yki;
+                    outImag[ok] = wkr * yki + wki * ykr;
+                    outReal[om] = wmr * ymr - wmi * ymi;
+                    outImag[om] = wmr * ymi + wmi * ymr;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
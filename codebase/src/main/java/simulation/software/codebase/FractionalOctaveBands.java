@@ -0,0 +1,155 @@
+package simulation.software.codebase;
+
+// Constant-Q aggregation of a linear FFT bin grid into 1/b-octave bands
+// (base-2 centres 1000 * 2^(n/b) Hz, edges a half band either side), the
+// natural grid for logarithmic sweeps. The bin-to-band mapping is built once
+// as a sparse matrix in compressed-row form: each band lists the bins it
+// overlaps and the fraction of each bin's width inside the band, so a
+// spectrum of thousands of bins reduces to tens of bands in one pass over
+// the non-zero weights. Immutable and safe to share.
+public class FractionalOctaveBands {
+    private final int bandsPerOctave;
+    private final int binCount;
+    private final double binSpacing;
+    private final double[] centerFrequencies;
+    private final double[] lowerEdges;
+    private final double[] upperEdges;
+
+    // Band b owns entries rowStart[b] .. rowStart[b + 1] - 1 of binIndex and weight
+    private final int[] rowStart;
+    private final int[] binIndex;
+    private final double[] weight;
+
+    // Sum of each band's weights, in bins
+    private final double[] bandWidth;
+
+    // Bands whose centres lie in [minFrequency, maxFrequency] over binCount bins
+    // spaced binSpacing apart from DC; bands reaching past the last bin are dropped
+    public FractionalOctaveBands(int bandsPerOctave, double minFrequency, double maxFrequency,
+                                 int binCount, double binSpacing) {
+        if (bandsPerOctave < 1 || minFrequency <= 0 || maxFrequency < minFrequency || binCount < 1
+                || binSpacing <= 0) {
+            throw new IllegalArgumentException("Invalid band configuration");
+        }
+        this.bandsPerOctave = bandsPerOctave;
+        this.binCount = binCount;
+        this.binSpacing = binSpacing;
+
+        // Upper edge of the last bin bounds the usable range
+        double halfBand = Math.pow(2, 0.5 / bandsPerOctave);
+        double top = Math.min(maxFrequency, (binCount - 0.5) * binSpacing / halfBand);
+        int first = (int) Math.ceil(bandsPerOctave * log2(minFrequency / 1000) - 1e-9);
+        int last = (int) Math.floor(bandsPerOctave * log2(top / 1000) + 1e-9);
+        int bands = Math.max(0, last - first + 1);
+
+        centerFrequencies = new double[bands];
+        lowerEdges = new double[bands];
+        upperEdges = new double[bands];
+        rowStart = new int[bands + 1];
+        bandWidth = new double[bands];
+
+        // First pass sizes the matrix, second fills it
+        int entries = 0;
+        for (int b = 0; b < bands; b++) {
+            double center = 1000 * Math.pow(2, (double) (first + b) / bandsPerOctave);
+            centerFrequencies[b] = center;
+            lowerEdges[b] = center / halfBand;
+            upperEdges[b] = center * halfBand;
+            entries += lastBin(upperEdges[b]) - firstBin(lowerEdges[b]) + 1;
+        }
+        binIndex = new int[entries];
+        weight = new double[entries];
+        int entry = 0;
+        for (int b = 0; b < bands; b++) {
+            rowStart[b] = entry;
+            for (int k = firstBin(lowerEdges[b]); k <= lastBin(upperEdges[b]); k++) {
+                // Bin k spans [(k - 0.5), (k + 0.5)] * binSpacing, clipped at DC
+                double binLow = Math.max(0, (k - 0.5) * binSpacing);
+                double binHigh = (k + 0.5) * binSpacing;
+                double overlap = Math.min(binHigh, upperEdges[b]) - Math.max(binLow, lowerEdges[b]);
+                binIndex[entry] = k;
+                weight[entry] = Math.max(0, overlap) / binSpacing;
+                bandWidth[b] += weight[entry];
+                entry++;
+            }
+        }
+        rowStart[bands] = entry;
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    private int firstBin(double frequency) {
+        return Math.max(0, (int) Math.floor(frequency / binSpacing + 0.5));
+    }
+
+    private int lastBin(double frequency) {
+        return Math.min(binCount - 1, (int) Math.floor(frequency / binSpacing + 0.5));
+    }
+
+    // Whether this mapping was built for the given bin grid
+    public boolean matches(int binCount, double binSpacing) {
+        return this.binCount == binCount && this.binSpacing == binSpacing;
+    }
+
+    public int getBandsPerOctave() {
+        return bandsPerOctave;
+    }
+
+    public int getBandCount() {
+        return centerFrequencies.length;
+    }
+
+    // Centre frequency over bandwidth, the same for every band
+    public double getQ() {
+        return 1 / (Math.pow(2, 0.5 / bandsPerOctave) - Math.pow(2, -0.5 / bandsPerOctave));
+    }
+
+    public double getCenterFrequency(int band) {
+        return centerFrequencies[band];
+    }
+
+    public double getLowerEdge(int band) {
+        return lowerEdges[band];
+    }
+
+    public double getUpperEdge(int band) {
+        return upperEdges[band];
+    }
+
+    // Band power: the weighted sum of per-bin powers, so total power is preserved
+    public void aggregatePower(double[] power, double[] bands) {
+        for (int b = 0; b < bandWidth.length; b++) {
+            double sum = 0;
+            for (int e = rowStart[b]; e < rowStart[b + 1]; e++) {
+                sum += weight[e] * power[binIndex[e]];
+            }
+            bands[b] = sum;
+        }
+    }
+
+    // Band magnitude: square root of the band power computed from bin magnitudes,
+    // so leakage bins add up and a bin-centred tone reads back its bin magnitude
+    public void aggregateMagnitude(double[] magnitude, double[] bands) {
+        for (int b = 0; b < bandWidth.length; b++) {
+            double sum = 0;
+            for (int e = rowStart[b]; e < rowStart[b + 1]; e++) {
+                double value = magnitude[binIndex[e]];
+                sum += weight[e] * value * value;
+            }
+            bands[b] = Math.sqrt(sum);
+        }
+    }
+
+    // Band density: the width-weighted mean of a per-bin density such as a PSD
+    public void aggregateDensity(double[] density, double[] bands) {
+        for (int b = 0; b < bandWidth.length; b++) {
+            double sum = 0;
+            for (int e = rowStart[b]; e < rowStart[b + 1]; e++) {
+                sum += weight[e] * density[binIndex[e]];
+            }
+            bands[b] = bandWidth[b] > 0 ? sum / bandWidth[b] : 0;
+        }
+    }
+}
\ No newline at end of file
@@ -26,6 +26,9 @@ import java.util.Date;
 import java.util.Random;
 
 public class FrequencyCounter {
+    // Points evaluated across the +/-1 bin neighbourhood of the coarse peak in zoom mode
+    private static final int ZOOM_BINS = 64;
+
     private final Stage stage;
     private final LineChart<Number, Number> waveformChart;
     private final XYChart.Series<Number, Number> waveformSeries;
@@ -41,6 +44,7 @@ public class FrequencyCounter {
     private double[] timeData;
     private double lastFrequency;
     private double lastPeriod;
+    private final FFTCalculator zoomCalculator = new FFTCalculator();
 
     public FrequencyCounter() {
         stage = new Stage();
@@ -97,7 +101,7 @@ public class FrequencyCounter {
         topBar.setStyle("-fx-background-color: #000000;");
 
         // Controls
-        methodComboBox = new ComboBox<>(FXCollections.observableArrayList("Zero Crossing", "FFT-based"));
+        methodComboBox = new ComboBox<>(FXCollections.observableArrayList("Zero Crossing", "FFT-based", "Zoom FFT"));
         methodComboBox.setValue("Zero Crossing");
         methodComboBox.setStyle(
                 "-fx-background-color: #000000;" +
@@ -269,19 +273,25 @@ public class FrequencyCounter {
             if (crossings > 0) {
                 frequency = crossings / (2 * windowSize); // Half-cycles to full cycles
             }
+        } else if (method.equals("Zoom FFT")) {
+            // Locate the coarse peak, then resolve it on a dense chirp-Z grid between its neighbours
+            double sampleRate = 1 / (windowedTime[1] - windowedTime[0]);
+            Spectrum coarse = zoomCalculator.computeSpectrum(windowedWaveform, sampleRate);
+            int peakIndex = coarse.getPeakIndex();
+            if (peakIndex > 0) {
+                double binSpacing = coarse.getBinSpacing();
+                Spectrum zoom = zoomCalculator.computeZoomSpectrum(windowedWaveform, sampleRate,
+                        (peakIndex - 1) * binSpacing, (peakIndex + 1) * binSpacing, ZOOM_BINS);
+                frequency = zoom.getFrequency(zoom.getPeakIndex());
+            }
         } else {
+            // Interpolate between bins so short windows still resolve well below the bin spacing
             FFTCalculator fft = new FFTCalculator();
-            double[] spectrum = fft.calculateMagnitudeSpectrum(windowedWaveform, (int) (1 / (windowedTime[1] - windowedTime[0])));
-            int maxIndex = 0;
-            double maxMagnitude = 0;
-            for (int i = 1; i < spectrum.length / 2; i++) {
-                if (spectrum[i] > maxMagnitude) {
-                    maxMagnitude = spectrum[i];
-                    maxIndex = i;
-                }
+            Spectrum spectrum = fft.computeSpectrum(windowedWaveform, 1 / (windowedTime[1] - windowedTime[0]));
+            int peakIndex = spectrum.getPeakIndex();
+            if (peakIndex > 0) {
+                frequency = SpectralPeak.estimate(spectrum, peakIndex, SpectralPeak.Method.QUINN).getFrequency();
             }
-            double frequencyResolution = 1 / windowSize;
-            frequency = maxIndex * frequencyResolution;
         }
 
         // Update labels
@@ -0,0 +1,91 @@
+package simulation.software.codebase;
+
+// Evaluates a handful of DFT bins directly with the Goertzel recurrence.
+// Each bin costs one pass of N multiply-adds, so k bins cost O(N*k) against
+// O(N log N) for a full FFT; worthwhile when only a few bins are read, such
+// as a fundamental and its harmonics. Bins may be fractional.
+public class GoertzelBank {
+    private final int length;
+    private final double[] bins;
+    private final double[] coefficients;
+
+    // e^(-j*omega) and the phase correction e^(-j*omega*(N-1)) per bin
+    private final double[] stepCos;
+    private final double[] stepSin;
+    private final double[] alignCos;
+    private final double[] alignSin;
+
+    // Bank for signals of the given length; bin k sits at k * sampleRate / length
+    public GoertzelBank(int length, double[] bins) {
+        if (length < 1 || bins == null) {
+            throw new IllegalArgumentException("Invalid Goertzel bank configuration");
+        }
+        this.length = length;
+        this.bins = bins.clone();
+        int count = bins.length;
+        coefficients = new double[count];
+        stepCos = new double[count];
+        stepSin = new double[count];
+        alignCos = new double[count];
+        alignSin = new double[count];
+        for (int b = 0; b < count; b++) {
+            double omega = 2 * Math.PI * bins[b] / length;
+            coefficients[b] = 2 * Math.cos(omega);
+            stepCos[b] = Math.cos(omega);
+            stepSin[b] = -Math.sin(omega);
+            alignCos[b] = Math.cos(omega * (length - 1));
+            alignSin[b] = -Math.sin(omega * (length - 1));
+        }
+    }
+
+    // Whether evaluating binCount bins directly beats one FFT of the given length
+    public static boolean isCheaperThanFFT(int length, int binCount) {
+        return length >= 2 && binCount < 31 - Integer.numberOfLeadingZeros(length);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getBinCount() {
+        return bins.length;
+    }
+
+    // Complex DFT values of the first length samples of signal at each bin,
+    // scaled like FFTPlan output
+    public void evaluate(double[] signal, double[] real, double[] imag) {
+        int n = Math.min(length, signal.length);
+        for (int b = 0; b < bins.length; b++) {
+            double coefficient = coefficients[b];
+            double s1 = 0;
+            double s2 = 0;
+            for (int i = 0; i < n; i++) {
+                double s0 = signal[i] + coefficient * s1 - s2;
+                s2 = s1;
+                s1 = s0;
+            }
+            // Samples past the end of the signal are zeros; keep the recurrence running
+            for (int i = n; i < length; i++) {
+                double s0 = coefficient * s1 - s2;
+                s2 = s1;
+                s1 = s0;
+            }
+
+            // y = s1 - e^(-j*omega) * s2, rotated back to a window starting at sample 0
+            double yr = s1 - stepCos[b] * s2;
+            double yi = -stepSin[b] * s2;
+            real[b] = yr * alignCos[b] - yi * alignSin[b];
+            imag[b] = yr * alignSin[b] + yi * alignCos[b];
+        }
+    }
+
+    // Magnitude at each bin
+    public double[] magnitudes(double[] signal) {
+        double[] real = new double[bins.length];
+        double[] imag = new double[bins.length];
+        evaluate(signal, real, imag);
+        double[] magnitude = new double[bins.length];
+        SpectralMath.magnitude(real, imag, magnitude, bins.length);
+        return magnitude;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,309 @@
+package simulation.software.codebase;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Out-of-core real FFT for captures far larger than RAM, stored as raw
+// native-order doubles. The capture is zero-padded to the next power of 2, N,
+// as FFTCalculator pads in memory, and read as N/2 complex points (even
+// samples real, odd imaginary), laid out as an M1 x M2 matrix, and transformed
+// in passes that stream through the files:
+//   1. length-M1 FFTs down bands of columns, times W^(column*k1), into a
+//      scratch file next to the output, in the same layout;
+//   2. length-M2 FFTs along bands of rows, written transposed into the output;
+//   3. the real-input post-twiddle, in place, pairing bins k and N/2 - k.
+// Files are accessed through FileChannel.map windows of at most WINDOW_BYTES,
+// each unmapped before the next is mapped, and heap buffers hold at most
+// BUFFER_POINTS complex points, so memory use does not grow with the capture
+// (apart from the O(sqrt N) FFT plans and twiddle tables). Like SegmentFFT it
+// needs java.lang.foreign (JDK 22, or JDK 21 with --enable-preview).
+public class OutOfCoreFFT {
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+    // Largest span of a file mapped at once
+    private static final long WINDOW_BYTES = 1L << 26;
+
+    // Complex points held in heap buffers per band or block (16 MB)
+    private static final int BUFFER_POINTS = 1 << 20;
+
+    private OutOfCoreFFT() {
+    }
+
+    // Writes bins 0..N/2 of the capture, zero-padded to N samples, to outputFile
+    // as interleaved real/imaginary doubles. Returns N, or 0 if the capture holds
+    // fewer than 2 samples.
+    public static long transform(Path inputFile, Path outputFile) throws IOException {
+        return run(inputFile, outputFile, false);
+    }
+
+    // Writes the N/2 magnitudes of bins 0..N/2-1 to outputFile instead. Returns N, or 0.
+    public static long magnitude(Path inputFile, Path outputFile) throws IOException {
+        return run(inputFile, outputFile, true);
+    }
+
+    private static long run(Path inputFile, Path outputFile, boolean magnitudes) throws IOException {
+        try (FileChannel in = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            long samples = in.size() / Double.BYTES;
+            if (samples < 2) {
+                return 0;
+            }
+            long n = Long.bitCount(samples) == 1 ? samples : Long.highestOneBit(samples) << 1;
+            long m = n / 2;
+            int log2 = 63 - Long.numberOfLeadingZeros(m);
+            int m1 = 1 << (log2 / 2);
+            int m2 = (int) (m / m1);
+
+            Path directory = outputFile.toAbsolutePath().getParent();
+            Path scratchFile = Files.createTempFile(directory, "fft", ".scratch");
+            try (FileChannel scratch = FileChannel.open(scratchFile, StandardOpenOption.READ,
+                         StandardOpenOption.WRITE);
+                 FileChannel out = FileChannel.open(outputFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                try (Window source = new Window(in, false, samples);
+                     Window target = new Window(scratch, true, 2 * m)) {
+                    columnPass(source, samples, target, m1, m2);
+                }
+                try (Window source = new Window(scratch, false, 2 * m);
+                     Window target = new Window(out, true, 2 * m + 2)) {
+                    rowPass(source, target, m1, m2);
+                }
+                try (Window front = new Window(out, true, 2 * m + 2);
+                     Window back = new Window(out, true, 2 * m + 2)) {
+                    postTwiddlePass(front, back, n);
+                }
+                if (magnitudes) {
+                    try (Window source = new Window(out, false, 2 * m + 2);
+                         Window target = new Window(out, true, 2 * m + 2)) {
+                        magnitudePass(source, target, m);
+                    }
+                    out.truncate(m * Double.BYTES);
+                }
+                out.force(true);
+            } finally {
+                Files.deleteIfExists(scratchFile);
+            }
+            return n;
+        }
+    }
+
+    // Pass 1: length-M1 FFTs down each column of the M1 x M2 matrix, times
+    // W_M^(column*k1), a band of columns at a time; each row contributes one
+    // contiguous run per band. Samples past the end of the capture read as zeros.
+    private static void columnPass(Window source, long samples, Window target, int m1, int m2)
+            throws IOException {
+        int width = Math.max(1, Math.min(m2, BUFFER_POINTS / m1));
+        FFTPlan plan = FFTPlan.forSize(m1);
+        FFTWorkspace workspace = new FFTWorkspace();
+        SegmentFFT.Twiddles twiddles = new SegmentFFT.Twiddles((long) m1 * m2);
+        double[][] real = new double[width][m1];
+        double[][] imag = new double[width][m1];
+        double[] run = new double[2 * width];
+        for (int first = 0; first < m2; first += width) {
+            for (int row = 0; row < m1; row++) {
+                long index = 2 * ((long) row * m2 + first);
+                int available = (int) Math.max(0, Math.min(2 * width, samples - index));
+                if (available > 0) {
+                    source.read(index, run, available);
+                }
+                Arrays.fill(run, available, 2 * width, 0);
+                for (int j = 0; j < width; j++) {
+                    real[j][row] = run[2 * j];
+                    imag[j][row] = run[2 * j + 1];
+                }
+            }
+            for (int j = 0; j < width; j++) {
+                plan.transform(real[j], imag[j], workspace);
+                long column = first + j;
+                for (int k1 = 0; k1 < m1; k1++) {
+                    long index = column * k1;
+                    double wr = twiddles.cos(index);
+                    double wi = twiddles.sin(index);
+                    double xr = real[j][k1];
+                    double xi = imag[j][k1];
+                    real[j][k1] = wr * xr - wi * xi;
+                    imag[j][k1] = wr * xi + wi * xr;
+                }
+            }
+            for (int row = 0; row < m1; row++) {
+                for (int j = 0; j < width; j++) {
+                    run[2 * j] = real[j][row];
+                    run[2 * j + 1] = imag[j][row];
+                }
+                target.write(2 * ((long) row * m2 + first), run, 2 * width);
+            }
+        }
+    }
+
+    // Pass 2: length-M2 FFT along each row k1, a band of rows at a time; bin
+    // k1 + M1*k2 of the complex transform is row k1, column k2, so each column of
+    // the band is one contiguous run of the output
+    private static void rowPass(Window source, Window target, int m1, int m2) throws IOException {
+        int height = Math.max(1, Math.min(m1, BUFFER_POINTS / m2));
+        FFTPlan plan = FFTPlan.forSize(m2);
+        FFTWorkspace workspace = new FFTWorkspace();
+        double[][] real = new double[height][m2];
+        double[][] imag = new double[height][m2];
+        double[] line = new double[2 * m2];
+        double[] run = new double[2 * height];
+        for (int first = 0; first < m1; first += height) {
+            for (int j = 0; j < height; j++) {
+                source.read(2 * (long) (first + j) * m2, line, 2 * m2);
+                for (int k2 = 0; k2 < m2; k2++) {
+                    real[j][k2] = line[2 * k2];
+                    imag[j][k2] = line[2 * k2 + 1];
+                }
+                plan.transform(real[j], imag[j], workspace);
+            }
+            for (int k2 = 0; k2 < m2; k2++) {
+                for (int j = 0; j < height; j++) {
+                    run[2 * j] = real[j][k2];
+                    run[2 * j + 1] = imag[j][k2];
+                }
+                target.write(2 * ((long) k2 * m1 + first), run, 2 * height);
+            }
+        }
+    }
+
+    // Pass 3: turns the N/2-point complex transform Z into bins 0..N/2 of the real
+    // input, in place, as in FFTPlan.realTransform. Blocks of bins k ascending from
+    // the front are paired with their mirrors N/2 - k descending from the back.
+    private static void postTwiddlePass(Window front, Window back, long n) throws IOException {
+        long m = n / 2;
+        SegmentFFT.Twiddles twiddles = new SegmentFFT.Twiddles(n);
+        double[] pair = new double[2];
+        front.read(0, pair, 2);
+        double z0r = pair[0];
+        double z0i = pair[1];
+        pair[0] = z0r + z0i;
+        pair[1] = 0;
+        front.write(0, pair, 2);
+        pair[0] = z0r - z0i;
+        back.write(2 * m, pair, 2);
+
+        int block = BUFFER_POINTS / 2;
+        double[] low = new double[2 * block];
+        double[] high = new double[2 * block];
+        for (long start = 1; start <= m / 2; start += block) {
+            long end = Math.min(start + block - 1, m / 2);
+            int count = (int) (end - start + 1);
+            front.read(2 * start, low, 2 * count);
+            back.read(2 * (m - end), high, 2 * count);
+            for (int i = 0; i < count; i++) {
+                long k = start + i;
+                int mirror = count - 1 - i;
+                double ar = low[2 * i];
+                double ai = low[2 * i + 1];
+                double br = high[2 * mirror];
+                double bi = high[2 * mirror + 1];
+
+                double er = 0.5 * (ar + br);
+                double ei = 0.5 * (ai - bi);
+                double or = 0.5 * (ai + bi);
+                double oi = -0.5 * (ar - br);
+
+                double wr = twiddles.cos(k);
+                double wi = twiddles.sin(k);
+                double tr = wr * or - wi * oi;
+                double ti = wr * oi + wi * or;
+
+                low[2 * i] = er + tr;
+                low[2 * i + 1] = ei + ti;
+                high[2 * mirror] = er - tr;
+                high[2 * mirror + 1] = ti - ei;
+            }
+            front.write(2 * start, low, 2 * count);
+            back.write(2 * (m - end), high, 2 * count);
+        }
+    }
+
+    // Optional pass 4: replaces bins 0..M-1 by their magnitudes, packed at the
+    // front of the same file; each block is read before the writes reach it
+    private static void magnitudePass(Window source, Window target, long m) throws IOException {
+        int block = BUFFER_POINTS / 2;
+        double[] bins = new double[2 * block];
+        double[] real = new double[block];
+        double[] imag = new double[block];
+        double[] magnitude = new double[block];
+        for (long start = 0; start < m; start += block) {
+            int count = (int) Math.min(block, m - start);
+            source.read(2 * start, bins, 2 * count);
+            for (int i = 0; i < count; i++) {
+                real[i] = bins[2 * i];
+                imag[i] = bins[2 * i + 1];
+            }
+            SpectralMath.magnitude(real, imag, magnitude, count);
+            target.write(start, magnitude, count);
+        }
+    }
+
+    // A sliding mapping of at most WINDOW_BYTES over a file of doubles. Accesses
+    // outside the current window unmap it and map a new one extending in the
+    // direction of travel, so forward and backward sweeps both remap rarely.
+    // The strided sweeps of passes 1 and 2 still remap several times per band,
+    // which is cheap: unmapping leaves written pages dirty in the page cache,
+    // where the next mapping sees them, and nothing is forced to storage until
+    // the output is complete (the scratch file never is). Forcing each writable
+    // window as it was unmapped made every remap a synchronous write of up to
+    // WINDOW_BYTES. Mapping a whole band's span instead would avoid the remaps
+    // but lets the resident set grow towards the file size.
+    private static final class Window implements AutoCloseable {
+        private final FileChannel channel;
+        private final boolean writable;
+        private final long fileBytes;
+        private Arena arena;
+        private MemorySegment segment;
+        private long start;
+
+        Window(FileChannel channel, boolean writable, long fileDoubles) {
+            this.channel = channel;
+            this.writable = writable;
+            this.fileBytes = fileDoubles * Double.BYTES;
+        }
+
+        void read(long index, double[] values, int count) throws IOException {
+            long offset = map(index * Double.BYTES, (long) count * Double.BYTES);
+            MemorySegment.copy(segment, DOUBLE, offset, values, 0, count);
+        }
+
+        void write(long index, double[] values, int count) throws IOException {
+            long offset = map(index * Double.BYTES, (long) count * Double.BYTES);
+            MemorySegment.copy(values, 0, segment, DOUBLE, offset, count);
+        }
+
+        // Maps a window holding [position, position + length) if needed; returns
+        // the offset of position within the window
+        private long map(long position, long length) throws IOException {
+            if (segment != null && position >= start && position + length <= start + segment.byteSize()) {
+                return position - start;
+            }
+            boolean backward = segment != null && position < start;
+            unmap();
+            long size = Math.min(fileBytes, Math.max(WINDOW_BYTES, length));
+            start = backward ? Math.max(0, position + length - size) : Math.min(position, fileBytes - size);
+            arena = Arena.ofConfined();
+            FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            segment = channel.map(mode, start, size, arena);
+            return position - start;
+        }
+
+        private void unmap() {
+            if (arena != null) {
+                arena.close();
+                arena = null;
+                segment = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            unmap();
+        }
+    }
+}
\ No newline at end of file
@@ -31,6 +31,7 @@ public class PhaseAnalyzer {
     private final NumberAxis yAxis;
     private final Label phaseLabel;
     private final Label fundamentalLabel;
+    private final Label delayLabel;
     private final Slider windowSizeSlider;
     private final ComboBox<String> channelComboBox;
     private double[] leftWaveform;
@@ -38,7 +39,9 @@ public class PhaseAnalyzer {
     private double duration;
     private double lastPhaseDifference;
     private double lastFundamentalFreq;
+    private double lastDelay;
     private FFTCalculator fftCalculator;
+    private CrossCorrelator delayCorrelator;
 
     public PhaseAnalyzer() {
         stage = new Stage();
@@ -62,7 +65,8 @@ public class PhaseAnalyzer {
         // Labels
         phaseLabel = new Label("Phase: 0.0°");
         fundamentalLabel = new Label("Fundamental: 0.0 Hz");
-        for (Label label : new Label[]{phaseLabel, fundamentalLabel}) {
+        delayLabel = new Label("Delay: 0.000 ms");
+        for (Label label : new Label[]{phaseLabel, fundamentalLabel, delayLabel}) {
             label.setStyle(
                     "-fx-text-fill: #FFFFFF;" +
                             "-fx-font-family: 'Courier New';" +
@@ -86,7 +90,7 @@ public class PhaseAnalyzer {
         exportButton.setOnAction(e -> exportData());
 
         // Top bar
-        HBox topBar = new HBox(20, phaseLabel, fundamentalLabel, exportButton);
+        HBox topBar = new HBox(20, phaseLabel, fundamentalLabel, delayLabel, exportButton);
         topBar.setAlignment(Pos.CENTER);
         topBar.setPadding(new Insets(10));
         topBar.setStyle("-fx-background-color: #000000;");
@@ -200,6 +204,7 @@ public class PhaseAnalyzer {
             phaseSeries.getData().clear();
             phaseLabel.setText("Phase: N/A");
             fundamentalLabel.setText("Fundamental: N/A");
+            delayLabel.setText("Delay: N/A");
             return;
         }
 
@@ -211,9 +216,28 @@ public class PhaseAnalyzer {
             rightWaveform[i] = waveform[i] * Math.cos(phaseShift);
         }
         this.duration = duration;
+        updateDelay();
         updatePhase();
     }
 
+    // Inter-channel delay over the whole buffers with GCC-PHAT, which holds for
+    // broadband and swept signals where the single-bin phase is meaningless.
+    // Computed once per buffer; the window slider only affects the phase.
+    private void updateDelay() {
+        int length = Math.min(leftWaveform.length, rightWaveform.length);
+        if (length < 2) {
+            lastDelay = 0;
+            delayLabel.setText("Delay: N/A");
+            return;
+        }
+        if (delayCorrelator == null || delayCorrelator.getLength() != length) {
+            delayCorrelator = new CrossCorrelator(length, CrossCorrelator.Weighting.PHAT);
+        }
+        double delaySamples = delayCorrelator.estimateDelay(leftWaveform, 0, rightWaveform, 0);
+        lastDelay = delaySamples * duration / leftWaveform.length;
+        delayLabel.setText(String.format("Delay: %.3f ms", lastDelay * 1000));
+    }
+
     public void startUpdating() {
         AnimationTimer timer = new AnimationTimer() {
             @Override
@@ -249,29 +273,22 @@ public class PhaseAnalyzer {
             rightWindow[i] = rightWaveform[i % rightWaveform.length];
         }
 
-        // Compute FFT for phase
-        double[] leftMagnitude = fftCalculator.computeFFTMagnitude(leftWindow);
-        double[] rightMagnitude = fftCalculator.computeFFTMagnitude(rightWindow);
-        double[] leftPhase = fftCalculator.computeFFTPhase(leftWindow);
-        double[] rightPhase = fftCalculator.computeFFTPhase(rightWindow);
+        // One FFT per channel, shared by the magnitude and phase lookups
+        Spectrum leftSpectrum = fftCalculator.computeSpectrum(leftWindow, sampleRate);
+        Spectrum rightSpectrum = fftCalculator.computeSpectrum(rightWindow, sampleRate);
 
-        if (leftMagnitude.length == 0 || rightMagnitude.length == 0) {
+        if (leftSpectrum.isEmpty() || rightSpectrum.isEmpty()) {
             phaseLabel.setText("Phase: N/A");
             fundamentalLabel.setText("Fundamental: N/A");
             return;
         }
 
         // Find fundamental frequency
-        int fundamentalIndex = 0;
-        double maxMagnitude = 0;
-        for (int i = 1; i < leftMagnitude.length; i++) {
-            if (leftMagnitude[i] > maxMagnitude) {
-                maxMagnitude = leftMagnitude[i];
-                fundamentalIndex = i;
-            }
-        }
-        double frequencyResolution = sampleRate / (double) leftMagnitude.length / 2;
-        double fundamentalFreq = fundamentalIndex * frequencyResolution;
+        int fundamentalIndex = leftSpectrum.getPeakIndex();
+        double fundamentalFreq = SpectralPeak.estimate(leftSpectrum, fundamentalIndex, SpectralPeak.Method.QUINN)
+                .getFrequency();
+        double[] leftPhase = leftSpectrum.getPhase();
+        double[] rightPhase = rightSpectrum.getPhase();
 
         // Compute phase difference
         double phaseDifference = 0;
@@ -310,9 +327,10 @@ public class PhaseAnalyzer {
 
         if (file != null) {
             try (FileWriter writer = new FileWriter(file)) {
-                writer.write("Timestamp,PhaseDifference,FundamentalFrequency\n");
+                writer.write("Timestamp,PhaseDifference,FundamentalFrequency,Delay\n");
                 String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-                writer.write(String.format("%s,%.6f,%.6f\n", timestamp, lastPhaseDifference, lastFundamentalFreq));
+                writer.write(String.format("%s,%.6f,%.6f,%.9f\n", timestamp, lastPhaseDifference, lastFundamentalFreq,
+                        lastDelay));
             } catch (IOException e) {
                 System.err.println("Error writing CSV file: " + e.getMessage());
             }
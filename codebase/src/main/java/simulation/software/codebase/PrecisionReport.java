@@ -0,0 +1,76 @@
+package simulation.software.codebase;
+
+// Accuracy of the single-precision FFT path measured against the double path
+// on the same waveform, so each analyzer can decide whether SINGLE is enough.
+public class PrecisionReport {
+    private final int size;
+    private final double peakMagnitude;
+    private final double maxAbsoluteError;
+    private final double rmsError;
+
+    private PrecisionReport(int size, double peakMagnitude, double maxAbsoluteError, double rmsError) {
+        this.size = size;
+        this.peakMagnitude = peakMagnitude;
+        this.maxAbsoluteError = maxAbsoluteError;
+        this.rmsError = rmsError;
+    }
+
+    // Transforms the input with both precisions and compares the complex bins
+    public static PrecisionReport measure(double[] input) {
+        if (input == null || input.length < 2) {
+            return new PrecisionReport(0, 0, 0, 0);
+        }
+        Spectrum reference = new FFTCalculator(FFTCalculator.Precision.DOUBLE).computeSpectrum(input, 1);
+        Spectrum single = new FFTCalculator(FFTCalculator.Precision.SINGLE).computeSpectrum(input, 1);
+
+        int bins = reference.getBinCount();
+        double[] magnitude = reference.getMagnitude();
+        double peak = 0;
+        double maxError = 0;
+        double sumSquares = 0;
+        for (int k = 0; k < bins; k++) {
+            double dr = single.getReal(k) - reference.getReal(k);
+            double di = single.getImag(k) - reference.getImag(k);
+            double error = Math.sqrt(dr * dr + di * di);
+            peak = Math.max(peak, magnitude[k]);
+            maxError = Math.max(maxError, error);
+            sumSquares += error * error;
+        }
+        return new PrecisionReport(input.length, peak, maxError, Math.sqrt(sumSquares / bins));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Largest bin magnitude of the double-precision spectrum
+    public double getPeakMagnitude() {
+        return peakMagnitude;
+    }
+
+    // Largest complex difference between corresponding bins
+    public double getMaxAbsoluteError() {
+        return maxAbsoluteError;
+    }
+
+    public double getRmsError() {
+        return rmsError;
+    }
+
+    // Maximum error relative to the spectral peak
+    public double getMaxRelativeError() {
+        return peakMagnitude > 0 ? maxAbsoluteError / peakMagnitude : 0;
+    }
+
+    // Error floor in dB below the peak; spurs under this level are not trustworthy in SINGLE
+    public double getErrorFloorDb() {
+        double relative = getMaxRelativeError();
+        return relative > 0 ? 20 * Math.log10(relative) : Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("N=%d, max error %.3e (%.1f dB re peak), RMS error %.3e",
+                size, maxAbsoluteError, getErrorFloorDb(), rmsError);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,262 @@
+package simulation.software.codebase;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// FFT over off-heap (or file-backed) MemorySegments of native-order doubles,
+// for captures too large for double[] or the heap. A four-step decomposition
+// N = N1 x N2 moves blocks of columns or rows into small heap buffers, runs
+// the cached FFTPlan kernels on them and writes them back, so no buffer of
+// size N is ever allocated on the heap. Blocks run in parallel on the common
+// ForkJoinPool when every segment is shared; confined segments stay on the
+// calling thread. Needs java.lang.foreign (JDK 22, or JDK 21 with
+// --enable-preview); FFTCalculator and the rest of the FFT code do not.
+public class SegmentFFT {
+    // Columns or rows moved per block; contiguous runs of this many doubles keep the strided passes cache friendly
+    private static final int BLOCK = 16;
+
+    // Ranges of blocks per common-pool worker; a few each keeps the workers balanced
+    private static final int TASKS_PER_WORKER = 4;
+
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+    // An unstarted thread: a segment accessible by it is not confined to its owner
+    private static final Thread SHARED_PROBE = new Thread(() -> { });
+
+    private SegmentFFT() {
+    }
+
+    // Out-of-place forward FFT of a power-of-2 size n >= 4; the input segments are used as scratch
+    static void transform(MemorySegment inReal, MemorySegment inImag,
+                          MemorySegment outReal, MemorySegment outImag, long n) {
+        int log2 = 63 - Long.numberOfLeadingZeros(n);
+        int n1 = 1 << (log2 / 2);
+        int n2 = (int) (n / n1);
+        Twiddles twiddles = new Twiddles(n);
+        boolean parallel = isShared(inReal) && isShared(inImag) && isShared(outReal) && isShared(outImag);
+
+        // Step 1: length-N1 FFT down each column x[N2*n1 + n2], times W_N^(n2*k1), written back in place
+        FFTPlan columnPlan = FFTPlan.forSize(n1);
+        int columnBlock = Math.min(BLOCK, n2);
+        forEachBlockRange(n2, parallel, (from, to) -> {
+            FFTWorkspace workspace = new FFTWorkspace();
+            double[][] real = new double[columnBlock][n1];
+            double[][] imag = new double[columnBlock][n1];
+            double[] run = new double[columnBlock];
+            double[] runImag = new double[columnBlock];
+            for (int first = from; first < to; first += columnBlock) {
+                int width = Math.min(columnBlock, to - first);
+                for (int row = 0; row < n1; row++) {
+                    long offset = ((long) row * n2 + first) * Double.BYTES;
+                    MemorySegment.copy(inReal, DOUBLE, offset, run, 0, width);
+                    MemorySegment.copy(inImag, DOUBLE, offset, runImag, 0, width);
+                    for (int j = 0; j < width; j++) {
+                        real[j][row] = run[j];
+                        imag[j][row] = runImag[j];
+                    }
+                }
+                for (int j = 0; j < width; j++) {
+                    columnPlan.transform(real[j], imag[j], workspace);
+                    long column = first + j;
+                    for (int k1 = 0; k1 < n1; k1++) {
+                        long index = column * k1;
+                        double wr = twiddles.cos(index);
+                        double wi = twiddles.sin(index);
+                        double xr = real[j][k1];
+                        double xi = imag[j][k1];
+                        real[j][k1] = wr * xr - wi * xi;
+                        imag[j][k1] = wr * xi + wi * xr;
+                    }
+                }
+                for (int row = 0; row < n1; row++) {
+                    for (int j = 0; j < width; j++) {
+                        run[j] = real[j][row];
+                        runImag[j] = imag[j][row];
+                    }
+                    long offset = ((long) row * n2 + first) * Double.BYTES;
+                    MemorySegment.copy(run, 0, inReal, DOUBLE, offset, width);
+                    MemorySegment.copy(runImag, 0, inImag, DOUBLE, offset, width);
+                }
+            }
+        });
+
+        // Step 2: length-N2 FFT along each row k1; X[k1 + N1*k2] is scattered to the output a block of rows at a time
+        FFTPlan rowPlan = FFTPlan.forSize(n2);
+        int rowBlock = Math.min(BLOCK, n1);
+        forEachBlockRange(n1, parallel, (from, to) -> {
+            FFTWorkspace workspace = new FFTWorkspace();
+            double[][] real = new double[rowBlock][n2];
+            double[][] imag = new double[rowBlock][n2];
+            double[] run = new double[rowBlock];
+            double[] runImag = new double[rowBlock];
+            for (int first = from; first < to; first += rowBlock) {
+                int height = Math.min(rowBlock, to - first);
+                for (int j = 0; j < height; j++) {
+                    long offset = (long) (first + j) * n2 * Double.BYTES;
+                    MemorySegment.copy(inReal, DOUBLE, offset, real[j], 0, n2);
+                    MemorySegment.copy(inImag, DOUBLE, offset, imag[j], 0, n2);
+                    rowPlan.transform(real[j], imag[j], workspace);
+                }
+                for (int k2 = 0; k2 < n2; k2++) {
+                    for (int j = 0; j < height; j++) {
+                        run[j] = real[j][k2];
+                        runImag[j] = imag[j][k2];
+                    }
+                    long offset = ((long) k2 * n1 + first) * Double.BYTES;
+                    MemorySegment.copy(run, 0, outReal, DOUBLE, offset, height);
+                    MemorySegment.copy(runImag, 0, outImag, DOUBLE, offset, height);
+                }
+            }
+        });
+    }
+
+    // Magnitude spectrum of n real samples stored off-heap as native-order doubles;
+    // writes n/2 magnitudes into magnitude. n must be a power of 2. Scratch space
+    // (2n doubles) is allocated off-heap too; the heap only holds the plans,
+    // twiddle tables and one set of block buffers per task, all O(sqrt n), so
+    // no heap allocation grows with the capture. Shared or global segments are
+    // processed in parallel.
+    public static void magnitude(MemorySegment input, MemorySegment magnitude, long n) {
+        if (n < 2 || Long.bitCount(n) != 1
+                || input.byteSize() < n * Double.BYTES || magnitude.byteSize() < n / 2 * Double.BYTES) {
+            throw new IllegalArgumentException("Off-heap FFT needs a power-of-2 length within both segments: " + n);
+        }
+        if (n < 8) {
+            double[] samples = input.asSlice(0, n * Double.BYTES).toArray(DOUBLE);
+            double[] result = new FFTCalculator().computeFFTMagnitude(samples);
+            MemorySegment.copy(result, 0, magnitude, DOUBLE, 0, result.length);
+            return;
+        }
+        try (Arena arena = Arena.ofShared()) {
+            MemorySegment scratch = arena.allocate(2 * n * Double.BYTES, Double.BYTES);
+            magnitude(input, magnitude, scratch, n);
+        }
+    }
+
+    // Magnitudes of bins 0..n/2-1 of n real samples (power of 2, n >= 8). scratch must
+    // hold 2n doubles; the work is an n/2-point complex transform plus a post-twiddle.
+    static void magnitude(MemorySegment input, MemorySegment magnitude, MemorySegment scratch, long n) {
+        long half = n / 2;
+        long halfBytes = half * Double.BYTES;
+        MemorySegment packedReal = scratch.asSlice(0, halfBytes);
+        MemorySegment packedImag = scratch.asSlice(halfBytes, halfBytes);
+        MemorySegment real = scratch.asSlice(2 * halfBytes, halfBytes);
+        MemorySegment imag = scratch.asSlice(3 * halfBytes, halfBytes);
+
+        // Even samples into the real part and odd samples into the imaginary part
+        double[] pairs = new double[2 * BLOCK * 64];
+        double[] evens = new double[BLOCK * 64];
+        double[] odds = new double[BLOCK * 64];
+        for (long m = 0; m < half; m += evens.length) {
+            int count = (int) Math.min(evens.length, half - m);
+            MemorySegment.copy(input, DOUBLE, 2 * m * Double.BYTES, pairs, 0, 2 * count);
+            for (int i = 0; i < count; i++) {
+                evens[i] = pairs[2 * i];
+                odds[i] = pairs[2 * i + 1];
+            }
+            MemorySegment.copy(evens, 0, packedReal, DOUBLE, m * Double.BYTES, count);
+            MemorySegment.copy(odds, 0, packedImag, DOUBLE, m * Double.BYTES, count);
+        }
+        transform(packedReal, packedImag, real, imag, half);
+
+        // Post-twiddle as in FFTPlan.realTransform, pairing bins k and N/2 - k
+        Twiddles twiddles = new Twiddles(n);
+        double z0r = real.getAtIndex(DOUBLE, 0);
+        double z0i = imag.getAtIndex(DOUBLE, 0);
+        magnitude.setAtIndex(DOUBLE, 0, Math.abs(z0r + z0i));
+        for (long k = 1; k <= half / 2; k++) {
+            long mirror = half - k;
+            double ar = real.getAtIndex(DOUBLE, k);
+            double ai = imag.getAtIndex(DOUBLE, k);
+            double br = real.getAtIndex(DOUBLE, mirror);
+            double bi = imag.getAtIndex(DOUBLE, mirror);
+
+            double er = 0.5 * (ar + br);
+            double ei = 0.5 * (ai - bi);
+            double or = 0.5 * (ai + bi);
+            double oi = -0.5 * (ar - br);
+
+            double wr = twiddles.cos(k);
+            double wi = twiddles.sin(k);
+            double tr = wr * or - wi * oi;
+            double ti = wr * oi + wi * or;
+
+            magnitude.setAtIndex(DOUBLE, k, Math.hypot(er + tr, ei + ti));
+            magnitude.setAtIndex(DOUBLE, mirror, Math.hypot(er - tr, ti - ei));
+        }
+    }
+
+    private static boolean isShared(MemorySegment segment) {
+        return segment.isAccessibleBy(SHARED_PROBE);
+    }
+
+    // Splits [0, count) into a few contiguous ranges of whole blocks per worker and
+    // runs them on the common ForkJoinPool, or as one range on the calling thread.
+    // Each range allocates its block buffers once and reuses them for every block.
+    private static void forEachBlockRange(int count, boolean parallel, BlockRange body) {
+        int blocks = (count + BLOCK - 1) / BLOCK;
+        int workers = ForkJoinPool.getCommonPoolParallelism();
+        int tasks = parallel && workers > 1 ? Math.min(blocks, workers * TASKS_PER_WORKER) : 1;
+        if (tasks <= 1) {
+            body.run(0, count);
+            return;
+        }
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int from = (int) ((long) blocks * task / tasks) * BLOCK;
+            int to = Math.min(count, (int) ((long) blocks * (task + 1) / tasks) * BLOCK);
+            body.run(from, to);
+        });
+    }
+
+    private interface BlockRange {
+        void run(int from, int to);
+    }
+
+    // W_N^j for any j in [0, N) from two tables of about sqrt(N) entries:
+    // W^j = W^(hi * B) * W^lo with j = hi * B + lo
+    static final class Twiddles {
+        private final int shift;
+        private final long mask;
+        private final double[] coarseCos;
+        private final double[] coarseSin;
+        private final double[] fineCos;
+        private final double[] fineSin;
+
+        Twiddles(long n) {
+            int log2 = 63 - Long.numberOfLeadingZeros(n);
+            shift = (log2 + 1) / 2;
+            int fine = 1 << shift;
+            int coarse = (int) ((n + fine - 1) >> shift);
+            mask = fine - 1;
+            fineCos = new double[fine];
+            fineSin = new double[fine];
+            for (int j = 0; j < fine; j++) {
+                double angle = -2 * Math.PI * j / n;
+                fineCos[j] = Math.cos(angle);
+                fineSin[j] = Math.sin(angle);
+            }
+            coarseCos = new double[coarse];
+            coarseSin = new double[coarse];
+            for (int j = 0; j < coarse; j++) {
+                double angle = -2 * Math.PI * ((double) ((long) j << shift) / n);
+                coarseCos[j] = Math.cos(angle);
+                coarseSin[j] = Math.sin(angle);
+            }
+        }
+
+        double cos(long j) {
+            int hi = (int) (j >>> shift);
+            int lo = (int) (j & mask);
+            return coarseCos[hi] * fineCos[lo] - coarseSin[hi] * fineSin[lo];
+        }
+
+        double sin(long j) {
+            int hi = (int) (j >>> shift);
+            int lo = (int) (j & mask);
+            return coarseCos[hi] * fineSin[lo] + coarseSin[hi] * fineCos[lo];
+        }
+    }
+}
\ No newline at end of file
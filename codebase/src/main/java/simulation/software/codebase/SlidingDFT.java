@@ -0,0 +1,123 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+
+// Recursive (sliding) DFT over the most recent windowSize samples. Each new
+// sample updates every tracked bin in O(bins), so a monitor that receives a
+// few samples per frame pays for those samples instead of a full FFT. The
+// bins are recomputed with an FFT every resyncInterval samples so rounding
+// error in the recurrence cannot accumulate. Not thread-safe.
+public class SlidingDFT {
+    private final int windowSize;
+    private final int binCount;
+    private final double sampleRate;
+    private final int resyncInterval;
+
+    // Ring buffer of the current window; head is the oldest sample
+    private final double[] window;
+    private int head;
+
+    // Bins 0..windowSize/2 of the DFT of the window in chronological order
+    private final double[] real;
+    private final double[] imag;
+
+    // W_N^-k, the per-sample rotation of bin k
+    private final double[] rotateCos;
+    private final double[] rotateSin;
+
+    // Resync transform; the workspace keeps it from allocating
+    private final FFTPlan plan;
+    private final FFTWorkspace workspace = new FFTWorkspace();
+    private final double[] scratch;
+    private int samplesSinceResync;
+
+    public SlidingDFT(int windowSize, double sampleRate) {
+        this(windowSize, sampleRate, windowSize);
+    }
+
+    public SlidingDFT(int windowSize, double sampleRate, int resyncInterval) {
+        if (windowSize < 2 || sampleRate <= 0 || resyncInterval < 1) {
+            throw new IllegalArgumentException("Invalid sliding DFT configuration");
+        }
+        this.windowSize = windowSize;
+        this.binCount = windowSize / 2;
+        this.sampleRate = sampleRate;
+        this.resyncInterval = resyncInterval;
+        window = new double[windowSize];
+        real = new double[binCount + 1];
+        imag = new double[binCount + 1];
+        plan = FFTPlan.forSize(windowSize);
+        scratch = new double[windowSize];
+        rotateCos = new double[binCount + 1];
+        rotateSin = new double[binCount + 1];
+        for (int k = 0; k <= binCount; k++) {
+            double angle = 2 * Math.PI * k / windowSize;
+            rotateCos[k] = Math.cos(angle);
+            rotateSin[k] = Math.sin(angle);
+        }
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    // Slides the window forward by one sample
+    public void push(double sample) {
+        double delta = sample - window[head];
+        window[head] = sample;
+        head = head + 1 == windowSize ? 0 : head + 1;
+
+        // X_k <- (X_k + x_new - x_old) * W_N^-k
+        for (int k = 0; k <= binCount; k++) {
+            double re = real[k] + delta;
+            double im = imag[k];
+            real[k] = re * rotateCos[k] - im * rotateSin[k];
+            imag[k] = re * rotateSin[k] + im * rotateCos[k];
+        }
+
+        if (++samplesSinceResync >= resyncInterval) {
+            resync();
+        }
+    }
+
+    // Slides the window forward by count samples of data starting at offset
+    public void push(double[] data, int offset, int count) {
+        // Past a full window the old bins are irrelevant; refill and transform once
+        if (count >= windowSize) {
+            System.arraycopy(data, offset + count - windowSize, window, 0, windowSize);
+            head = 0;
+            resync();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            push(data[offset + i]);
+        }
+    }
+
+    public void push(double[] data) {
+        push(data, 0, data.length);
+    }
+
+    // Zeroes the window and all bins
+    public void reset() {
+        Arrays.fill(window, 0);
+        Arrays.fill(real, 0);
+        Arrays.fill(imag, 0);
+        head = 0;
+        samplesSinceResync = 0;
+    }
+
+    // Recomputes the bins from the window with an FFT, discarding accumulated drift
+    public void resync() {
+        int tail = windowSize - head;
+        System.arraycopy(window, head, scratch, 0, tail);
+        System.arraycopy(window, 0, scratch, tail, head);
+        plan.realTransform(scratch, 0, null, real, imag, workspace);
+        samplesSinceResync = 0;
+    }
+
+    // Snapshot of the current bins below Nyquist
+    public Spectrum getSpectrum() {
+        return new Spectrum(real.clone(), imag.clone(), binCount, sampleRate / windowSize);
+    }
+}
\ No newline at end of file
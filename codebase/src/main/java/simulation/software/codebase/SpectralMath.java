@@ -0,0 +1,116 @@
+package simulation.software.codebase;
+
+// Per-bin spectral post-processing. Uses the SIMD loops in VectorKernels when
+// the jdk.incubator.vector module is available at runtime (start the JVM with
+// --add-modules jdk.incubator.vector) and plain scalar loops otherwise.
+public class SpectralMath {
+    private static final boolean VECTORIZED = detectVectorSupport();
+
+    private SpectralMath() {
+    }
+
+    private static boolean detectVectorSupport() {
+        if (Boolean.getBoolean("sweepgen.fft.scalar")) {
+            return false;
+        }
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return false;
+        }
+        try {
+            // A single lane would gain nothing over the scalar loops
+            return VectorKernels.laneCount() > 1;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    // Whether the SIMD backend is active
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    // sqrt(re^2 + im^2) for the first count bins
+    public static void magnitude(double[] real, double[] imag, double[] out, int count) {
+        if (VECTORIZED) {
+            VectorKernels.magnitude(real, imag, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = Math.sqrt(real[i] * real[i] + imag[i] * imag[i]);
+        }
+    }
+
+    // re^2 + im^2 for the first count bins
+    public static void power(double[] real, double[] imag, double[] out, int count) {
+        if (VECTORIZED) {
+            VectorKernels.power(real, imag, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = real[i] * real[i] + imag[i] * imag[i];
+        }
+    }
+
+    // atan2(im, re) for the first count bins
+    public static void phase(double[] real, double[] imag, double[] out, int count) {
+        if (VECTORIZED) {
+            VectorKernels.phase(real, imag, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = Math.atan2(imag[i], real[i]);
+        }
+    }
+
+    // 20 * log10(magnitude), with non-positive magnitudes mapped to floor
+    public static void decibels(double[] magnitude, double[] out, int count, double floor) {
+        if (VECTORIZED) {
+            VectorKernels.decibels(magnitude, out, count, floor);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = magnitude[i] > 0 ? 20 * Math.log10(magnitude[i]) : floor;
+        }
+    }
+
+    // Single-precision variants of the helpers above, for FloatFFTPlan output
+    public static void magnitude(float[] real, float[] imag, float[] out, int count) {
+        if (VECTORIZED) {
+            VectorKernels.magnitude(real, imag, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = (float) Math.sqrt(real[i] * real[i] + imag[i] * imag[i]);
+        }
+    }
+
+    public static void power(float[] real, float[] imag, float[] out, int count) {
+        if (VECTORIZED) {
+            VectorKernels.power(real, imag, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = real[i] * real[i] + imag[i] * imag[i];
+        }
+    }
+
+    public static void phase(float[] real, float[] imag, float[] out, int count) {
+        if (VECTORIZED) {
+            VectorKernels.phase(real, imag, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = (float) Math.atan2(imag[i], real[i]);
+        }
+    }
+
+    public static void decibels(float[] magnitude, float[] out, int count, float floor) {
+        if (VECTORIZED) {
+            VectorKernels.decibels(magnitude, out, count, floor);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = magnitude[i] > 0 ? (float) (20 * Math.log10(magnitude[i])) : floor;
+        }
+    }
+}
\ No newline at end of file
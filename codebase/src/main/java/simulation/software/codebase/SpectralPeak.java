@@ -0,0 +1,128 @@
+package simulation.software.codebase;
+
+// Sub-bin frequency and amplitude of a spectral peak, interpolated from the
+// peak bin and its two neighbours instead of zero-padding to a larger FFT.
+// PARABOLIC fits a parabola to the log magnitudes and suits windowed spectra;
+// QUINN (second estimator, from the complex bins) and JAIN (magnitude ratio of
+// the larger neighbour) assume an unwindowed frame, and scale the amplitude
+// back up by the rectangular window's scalloping loss. A true peak lies within
+// half a bin of its largest bin, so when either of them lands further out
+// (noise, a windowed frame, or a bin that is not a maximum) the parabolic fit
+// is used instead, which also keeps the scalloping correction bounded.
+public class SpectralPeak {
+    public enum Method { PARABOLIC, QUINN, JAIN }
+
+    private static final double SQRT_TWO_THIRDS = Math.sqrt(2.0 / 3.0);
+
+    private final double bin;
+    private final double frequency;
+    private final double magnitude;
+
+    private SpectralPeak(double bin, double frequency, double magnitude) {
+        this.bin = bin;
+        this.frequency = frequency;
+        this.magnitude = magnitude;
+    }
+
+    // Refines the peak at bin; peaks on the first or last bin have no neighbour
+    // on one side and are returned unrefined
+    public static SpectralPeak estimate(Spectrum spectrum, int bin, Method method) {
+        if (spectrum.isEmpty()) {
+            return new SpectralPeak(0, 0, 0);
+        }
+        double[] mag = spectrum.getMagnitude();
+        if (bin < 1 || bin >= spectrum.getBinCount() - 1 || mag[bin] == 0) {
+            return new SpectralPeak(bin, spectrum.getFrequency(bin), mag[bin]);
+        }
+        double below = mag[bin - 1];
+        double peak = mag[bin];
+        double above = mag[bin + 1];
+
+        double offset;
+        switch (method) {
+            case PARABOLIC:
+                return parabolic(below, peak, above, bin, spectrum.getStartFrequency(), spectrum.getBinSpacing());
+            case QUINN:
+                offset = quinnOffset(spectrum, bin);
+                break;
+            case JAIN:
+                if (above > below) {
+                    double ratio = above / peak;
+                    offset = ratio / (1 + ratio);
+                } else {
+                    double ratio = below / peak;
+                    offset = -ratio / (1 + ratio);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown peak method: " + method);
+        }
+        if (!(Math.abs(offset) <= 0.5)) {
+            return parabolic(below, peak, above, bin, spectrum.getStartFrequency(), spectrum.getBinSpacing());
+        }
+        double refined = bin + offset;
+        return new SpectralPeak(refined, spectrum.getStartFrequency() + refined * spectrum.getBinSpacing(),
+                peak * scallopingCorrection(offset));
+    }
+
+    // Parabola through the log magnitudes of bins bin - 1, bin and bin + 1 of a
+    // grid starting at startFrequency; the vertex gives the peak. Usable on any
+    // three equally spaced magnitudes, such as Goertzel outputs. A middle value
+    // that is not a maximum is returned unrefined.
+    public static SpectralPeak parabolic(double below, double peak, double above, int bin,
+                                         double startFrequency, double binSpacing) {
+        double offset = 0;
+        double amplitude = peak;
+        if (below > 0 && above > 0 && peak >= below && peak >= above) {
+            double a = Math.log(below);
+            double b = Math.log(peak);
+            double c = Math.log(above);
+            double curvature = a - 2 * b + c;
+            if (curvature < 0) {
+                offset = Math.max(-0.5, Math.min(0.5, 0.5 * (a - c) / curvature));
+                amplitude = Math.exp(b - 0.25 * (a - c) * offset);
+            }
+        }
+        double refined = bin + offset;
+        return new SpectralPeak(refined, startFrequency + refined * binSpacing, amplitude);
+    }
+
+    // Quinn's second estimator from the real parts of the neighbour-to-peak ratios;
+    // NaN if the ratios are degenerate
+    private static double quinnOffset(Spectrum spectrum, int bin) {
+        double pr = spectrum.getReal(bin);
+        double pi = spectrum.getImag(bin);
+        double norm = pr * pr + pi * pi;
+        double ap = (spectrum.getReal(bin + 1) * pr + spectrum.getImag(bin + 1) * pi) / norm;
+        double am = (spectrum.getReal(bin - 1) * pr + spectrum.getImag(bin - 1) * pi) / norm;
+        double dp = -ap / (1 - ap);
+        double dm = am / (1 - am);
+        return (dp + dm) / 2 + tau(dp * dp) - tau(dm * dm);
+    }
+
+    private static double tau(double x) {
+        return 0.25 * Math.log(3 * x * x + 6 * x + 1)
+                - Math.sqrt(6) / 24 * Math.log((x + 1 - SQRT_TWO_THIRDS) / (x + 1 + SQRT_TWO_THIRDS));
+    }
+
+    // Inverse of the rectangular window's response |sin(pi d) / (pi d)| at offset
+    // |d| <= 0.5, at most pi/2
+    private static double scallopingCorrection(double offset) {
+        double x = Math.PI * offset;
+        return Math.abs(x) < 1e-9 ? 1 : Math.abs(x / Math.sin(x));
+    }
+
+    // Fractional bin index of the peak
+    public double getBin() {
+        return bin;
+    }
+
+    public double getFrequency() {
+        return frequency;
+    }
+
+    // Peak magnitude on the same scale as the spectrum's bins
+    public double getMagnitude() {
+        return magnitude;
+    }
+}
\ No newline at end of file
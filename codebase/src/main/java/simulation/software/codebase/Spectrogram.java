@@ -0,0 +1,215 @@
+package simulation.software.codebase;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Short-time Fourier transform engine. Windowed frames of frameLength samples,
+// hop samples apart, are transformed into magnitude spectra and kept in a
+// fixed ring of the most recent capacity frames, oldest first. All buffers are
+// allocated up front, so streaming through push() allocates nothing; analyze()
+// processes a recorded signal with frames transformed in parallel. Magnitudes
+// use coherent-gain corrected windows, matching FFTCalculator's windowed
+// spectra. Not thread-safe.
+public class Spectrogram {
+    private final int frameLength;
+    private final int hop;
+    private final int capacity;
+    private final double sampleRate;
+    private final int binCount;
+    private final double[] window;
+    private final FFTPlan plan;
+
+    // Ring of magnitude spectra and the first sample index of each
+    private final double[][] frames;
+    private final long[] frameStarts;
+    private int nextSlot;
+    private int frameCount;
+    private long totalFrames;
+
+    // Streaming state: samples of the frame being filled, and samples still to
+    // skip when the hop is longer than a frame
+    private final double[] pending;
+    private int pendingCount;
+    private long skipCount;
+    private long position;
+
+    // Streaming scratch
+    private final FFTWorkspace workspace = new FFTWorkspace();
+    private final double[] real;
+    private final double[] imag;
+
+    // Hann-windowed spectrogram
+    public Spectrogram(int frameLength, int hop, int capacity, double sampleRate) {
+        this(frameLength, hop, capacity, sampleRate, WindowFunction.Type.HANN);
+    }
+
+    public Spectrogram(int frameLength, int hop, int capacity, double sampleRate, WindowFunction.Type windowType) {
+        if (frameLength < 2 || hop < 1 || capacity < 1 || sampleRate <= 0 || windowType == null) {
+            throw new IllegalArgumentException("Invalid spectrogram configuration");
+        }
+        this.frameLength = frameLength;
+        this.hop = hop;
+        this.capacity = capacity;
+        this.sampleRate = sampleRate;
+        this.binCount = frameLength / 2;
+        window = WindowFunction.forType(windowType, frameLength).getCorrectedCoefficients();
+        plan = FFTPlan.forSize(frameLength);
+
+        frames = new double[capacity][binCount];
+        frameStarts = new long[capacity];
+        pending = new double[frameLength];
+        real = new double[binCount + 1];
+        imag = new double[binCount + 1];
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    public int getHop() {
+        return hop;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBinCount() {
+        return binCount;
+    }
+
+    public double getBinSpacing() {
+        return sampleRate / frameLength;
+    }
+
+    // Frames currently held, at most capacity
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    // Frames produced since construction or the last reset, including those overwritten
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    // Magnitude spectrum of a held frame, 0 being the oldest; shared, do not modify
+    public double[] getFrame(int index) {
+        return frames[slotOf(index)];
+    }
+
+    // Start time in seconds of a held frame, counted from the start of the stream
+    public double getFrameTime(int index) {
+        return frameStarts[slotOf(index)] / sampleRate;
+    }
+
+    // Streaming mode: consumes the next block of the sample stream and returns the
+    // number of frames emitted. Blocks of any length may be fed.
+    public int push(double[] samples) {
+        return samples == null ? 0 : push(samples, 0, samples.length);
+    }
+
+    public int push(double[] samples, int offset, int count) {
+        int emitted = 0;
+        int index = offset;
+        int end = offset + count;
+        while (index < end) {
+            if (skipCount > 0) {
+                int skipped = (int) Math.min(skipCount, end - index);
+                skipCount -= skipped;
+                position += skipped;
+                index += skipped;
+                continue;
+            }
+            int copied = Math.min(frameLength - pendingCount, end - index);
+            System.arraycopy(samples, index, pending, pendingCount, copied);
+            pendingCount += copied;
+            position += copied;
+            index += copied;
+            if (pendingCount < frameLength) {
+                break;
+            }
+
+            transformFrame(pending, 0, nextSlot, real, imag, workspace);
+            frameStarts[nextSlot] = position - frameLength;
+            advance(1);
+            emitted++;
+
+            // Keep the overlap for the next frame, or skip the gap between frames
+            if (hop < frameLength) {
+                System.arraycopy(pending, hop, pending, 0, frameLength - hop);
+                pendingCount = frameLength - hop;
+            } else {
+                pendingCount = 0;
+                skipCount = hop - frameLength;
+            }
+        }
+        return emitted;
+    }
+
+    // Offline mode: replaces the held frames with the last capacity frames of a
+    // recorded signal and returns the number of frames the signal contains.
+    // Frames are transformed in parallel straight into their ring slots. The
+    // stream restarts empty afterwards.
+    public int analyze(double[] signal) {
+        reset();
+        int total = signal == null || signal.length < frameLength ? 0 : (signal.length - frameLength) / hop + 1;
+        if (total == 0) {
+            return 0;
+        }
+        int first = Math.max(0, total - capacity);
+        int count = total - first;
+
+        int framesPerTask = Math.max(1, (1 << 14) / frameLength);
+        int tasks = (count + framesPerTask - 1) / framesPerTask;
+        IntStream taskRange = IntStream.range(0, tasks);
+        if (tasks > 1 && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            taskRange = taskRange.parallel();
+        }
+        taskRange.forEach(task -> {
+            FFTWorkspace taskWorkspace = new FFTWorkspace();
+            double[] taskReal = new double[binCount + 1];
+            double[] taskImag = new double[binCount + 1];
+            int from = task * framesPerTask;
+            int to = Math.min(count, from + framesPerTask);
+            for (int slot = from; slot < to; slot++) {
+                int start = (first + slot) * hop;
+                transformFrame(signal, start, slot, taskReal, taskImag, taskWorkspace);
+                frameStarts[slot] = start;
+            }
+        });
+        advance(count);
+        totalFrames = total;
+        return total;
+    }
+
+    // Drops all frames and any partially filled frame
+    public void reset() {
+        nextSlot = 0;
+        frameCount = 0;
+        totalFrames = 0;
+        pendingCount = 0;
+        skipCount = 0;
+        position = 0;
+    }
+
+    // Windowed magnitude spectrum of the frame at offset into a ring slot
+    private void transformFrame(double[] signal, int offset, int slot, double[] frameReal, double[] frameImag,
+                                FFTWorkspace frameWorkspace) {
+        plan.realTransform(signal, offset, window, frameReal, frameImag, frameWorkspace);
+        SpectralMath.magnitude(frameReal, frameImag, frames[slot], binCount);
+    }
+
+    // Marks the next count slots as filled
+    private void advance(int count) {
+        nextSlot = (nextSlot + count) % capacity;
+        frameCount = Math.min(capacity, frameCount + count);
+        totalFrames += count;
+    }
+
+    private int slotOf(int index) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + frameCount);
+        }
+        return (nextSlot - frameCount + index + capacity) % capacity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package simulation.software.codebase;
+
+public class Spectrum {
+    private final double[] real;
+    private final double[] imag;
+    private final int binCount;
+    private final double binSpacing;
+    private final double startFrequency;
+
+    // Derived fields, computed on first access
+    private double[] magnitude;
+    private double[] phase;
+    private double[] power;
+
+    // Wraps the complex bins of one transform; only the first binCount bins are exposed
+    Spectrum(double[] real, double[] imag, int binCount, double binSpacing) {
+        this(real, imag, binCount, binSpacing, 0);
+    }
+
+    // Zoomed spectrum whose bin 0 sits at startFrequency instead of DC
+    Spectrum(double[] real, double[] imag, int binCount, double binSpacing, double startFrequency) {
+        this.real = real;
+        this.imag = imag;
+        this.binCount = binCount;
+        this.binSpacing = binSpacing;
+        this.startFrequency = startFrequency;
+    }
+
+    // Spectrum with no bins, returned for invalid input
+    static Spectrum empty() {
+        return new Spectrum(new double[0], new double[0], 0, 0);
+    }
+
+    public int getBinCount() {
+        return binCount;
+    }
+
+    public boolean isEmpty() {
+        return binCount == 0;
+    }
+
+    // Frequency distance between adjacent bins (Hz when built with a sample rate)
+    public double getBinSpacing() {
+        return binSpacing;
+    }
+
+    // Frequency of bin 0; zero unless this is a zoomed spectrum
+    public double getStartFrequency() {
+        return startFrequency;
+    }
+
+    public double getFrequency(int bin) {
+        return startFrequency + bin * binSpacing;
+    }
+
+    public double getReal(int bin) {
+        return real[bin];
+    }
+
+    public double getImag(int bin) {
+        return imag[bin];
+    }
+
+    public double[] getMagnitude() {
+        if (magnitude == null) {
+            magnitude = new double[binCount];
+            SpectralMath.magnitude(real, imag, magnitude, binCount);
+        }
+        return magnitude;
+    }
+
+    public double[] getPhase() {
+        if (phase == null) {
+            phase = new double[binCount];
+            SpectralMath.phase(real, imag, phase, binCount);
+        }
+        return phase;
+    }
+
+    // Squared magnitude of each bin
+    public double[] getPower() {
+        if (power == null) {
+            power = new double[binCount];
+            SpectralMath.power(real, imag, power, binCount);
+        }
+        return power;
+    }
+
+    // Index of the strongest bin above DC, or 0 if there is none.
+    // Zoomed spectra have no DC bin, so bin 0 is a candidate there.
+    public int getPeakIndex() {
+        double[] mag = getMagnitude();
+        int peakIndex = 0;
+        double maxMagnitude = 0;
+        for (int i = startFrequency == 0 ? 1 : 0; i < binCount; i++) {
+            if (mag[i] > maxMagnitude) {
+                maxMagnitude = mag[i];
+                peakIndex = i;
+            }
+        }
+        return peakIndex;
+    }
+}
\ No newline at end of file
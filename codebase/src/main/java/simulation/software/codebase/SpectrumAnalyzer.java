@@ -19,6 +19,14 @@ import java.io.FileWriter;
 import java.io.IOException;
 
 public class SpectrumAnalyzer {
+    // Welch averaging settings used when averaging is switched on
+    private static final int WELCH_SEGMENT_LENGTH = 256;
+    private static final double WELCH_OVERLAP = 0.5;
+    private static final int WELCH_AVERAGES = 16;
+
+    // Bands per octave when the band display is on
+    private static final int BANDS_PER_OCTAVE = 3;
+
     private final Stage stage;
     private final LineChart<Number, Number> spectrumChart;
     private final XYChart.Series<Number, Number> series;
@@ -29,6 +37,16 @@ public class SpectrumAnalyzer {
     private double[] waveformData;
     private double sampleRate;
     private boolean isLogarithmic = false;
+    private boolean isAveraging = false;
+    private WelchPSD welch;
+    private boolean isBanded = false;
+    private FractionalOctaveBands bands;
+    private double[] bandValues = new double[0];
+
+    // Reused across frames so the spectrum computation itself does not allocate
+    private final FFTWorkspace workspace = new FFTWorkspace();
+    private double[] magnitude = new double[0];
+    private double[] decibels = new double[0];
 
     public SpectrumAnalyzer() {
         fftCalculator = new FFTCalculator();
@@ -75,7 +93,44 @@ public class SpectrumAnalyzer {
         toggleScaleButton.setOnAction(e -> {
             isLogarithmic = !isLogarithmic;
             toggleScaleButton.setText(isLogarithmic ? "Switch to Linear" : "Switch to Log");
-            yAxis.setLabel(isLogarithmic ? "Magnitude (dB)" : "Magnitude (Linear)");
+            updateAxisLabel();
+            updateSpectrum();
+        });
+
+        Button averagingButton = new Button("Averaging: Off");
+        averagingButton.setStyle(
+                "-fx-font-family: 'Courier New';" +
+                        "-fx-font-size: 12px;" +
+                        "-fx-background-color: #000000;" +
+                        "-fx-text-fill: #FFFFCC;" +
+                        "-fx-border-color: #666666 #333333 #333333 #666666;" +
+                        "-fx-border-width: 2;" +
+                        "-fx-padding: 5;"
+        );
+        averagingButton.setOnAction(e -> {
+            isAveraging = !isAveraging;
+            averagingButton.setText(isAveraging ? "Averaging: On" : "Averaging: Off");
+            welch = null;
+            if (isAveraging && waveformData != null) {
+                foldIntoAverage(waveformData);
+            }
+            updateAxisLabel();
+            updateSpectrum();
+        });
+
+        Button bandsButton = new Button("Bands: Off");
+        bandsButton.setStyle(
+                "-fx-font-family: 'Courier New';" +
+                        "-fx-font-size: 12px;" +
+                        "-fx-background-color: #000000;" +
+                        "-fx-text-fill: #FFFFCC;" +
+                        "-fx-border-color: #666666 #333333 #333333 #666666;" +
+                        "-fx-border-width: 2;" +
+                        "-fx-padding: 5;"
+        );
+        bandsButton.setOnAction(e -> {
+            isBanded = !isBanded;
+            bandsButton.setText(isBanded ? "Bands: 1/" + BANDS_PER_OCTAVE + " Octave" : "Bands: Off");
             updateSpectrum();
         });
 
@@ -91,7 +146,7 @@ public class SpectrumAnalyzer {
         );
         exportSpectrumButton.setOnAction(e -> exportSpectrumData());
 
-        HBox controls = new HBox(10, toggleScaleButton, exportSpectrumButton);
+        HBox controls = new HBox(10, toggleScaleButton, averagingButton, bandsButton, exportSpectrumButton);
         controls.setAlignment(Pos.CENTER);
         controls.setPadding(new Insets(10));
 
@@ -140,12 +195,36 @@ public class SpectrumAnalyzer {
             return;
         }
         this.waveformData = waveform;
-        this.sampleRate = 1024 / duration; // Adjusted for 1024-sample FFT
+        this.sampleRate = waveform.length / duration; // Samples span the full duration
         xAxis.setUpperBound(sampleRate / 2); // Dynamic Nyquist frequency
         xAxis.setTickUnit(sampleRate / 10); // Adjust tick spacing
+        if (isAveraging) {
+            foldIntoAverage(waveform);
+        }
         updateSpectrum();
     }
 
+    // Streams a delivered waveform into the Welch average, restarting it if the rate or length changed
+    private void foldIntoAverage(double[] waveform) {
+        int segmentLength = Math.min(WELCH_SEGMENT_LENGTH, waveform.length);
+        if (segmentLength < 2) {
+            return;
+        }
+        if (welch == null || welch.getSegmentLength() != segmentLength
+                || welch.getBinSpacing() != sampleRate / segmentLength) {
+            welch = new WelchPSD(segmentLength, WELCH_OVERLAP, WELCH_AVERAGES, sampleRate);
+        }
+        welch.update(waveform);
+    }
+
+    private void updateAxisLabel() {
+        if (isAveraging) {
+            yAxis.setLabel(isLogarithmic ? "PSD (dB/Hz)" : "PSD (V^2/Hz)");
+        } else {
+            yAxis.setLabel(isLogarithmic ? "Magnitude (dB)" : "Magnitude (Linear)");
+        }
+    }
+
     public void startUpdating() {
         AnimationTimer timer = new AnimationTimer() {
             @Override
@@ -161,17 +240,37 @@ public class SpectrumAnalyzer {
     private void updateSpectrum() {
         series.getData().clear();
         if (waveformData == null) return;
+        if (isAveraging && welch != null) {
+            updateAveragedSpectrum();
+            return;
+        }
 
-        double[] magnitude = fftCalculator.computeFFTMagnitude(waveformData);
-        double freqStep = sampleRate / 1024; // Adjusted for 1024-sample FFT
+        if (magnitude.length != waveformData.length / 2) {
+            magnitude = new double[waveformData.length / 2];
+            decibels = new double[magnitude.length];
+        }
+        int bins = fftCalculator.computeFFTMagnitude(waveformData, magnitude, workspace);
+        double freqStep = sampleRate / waveformData.length;
+        if (isBanded && bins > 1) {
+            FractionalOctaveBands octaves = bandsFor(bins, freqStep);
+            octaves.aggregateMagnitude(magnitude, bandValues);
+            plotBands(octaves, 20, -100);
+            return;
+        }
         double maxMagnitude = 0;
         double peakFrequency = 0;
 
-        for (int i = 0; i < magnitude.length; i++) {
+        // Convert the whole spectrum to dB in one pass
+        double[] values = magnitude;
+        if (isLogarithmic) {
+            values = decibels;
+            SpectralMath.decibels(magnitude, values, bins, -100);
+        }
+
+        for (int i = 0; i < bins; i++) {
             double frequency = i * freqStep;
             if (frequency > sampleRate / 2) break;
-            double value = isLogarithmic ? (magnitude[i] > 0 ? 20 * Math.log10(magnitude[i]) : -100) : magnitude[i];
-            series.getData().add(new XYChart.Data<>(frequency, value));
+            series.getData().add(new XYChart.Data<>(frequency, values[i]));
             if (magnitude[i] > maxMagnitude) {
                 maxMagnitude = magnitude[i];
                 peakFrequency = frequency;
@@ -181,6 +280,56 @@ public class SpectrumAnalyzer {
         peakLabel.setText(String.format("Peak: %.0f Hz", peakFrequency));
     }
 
+    // Plots the Welch-averaged density instead of a single-frame magnitude
+    private void updateAveragedSpectrum() {
+        double[] psd = welch.getPSD();
+        double freqStep = welch.getBinSpacing();
+        if (isBanded && psd.length > 1) {
+            FractionalOctaveBands octaves = bandsFor(psd.length, freqStep);
+            octaves.aggregateDensity(psd, bandValues);
+            plotBands(octaves, 10, -200);
+            return;
+        }
+        double maxDensity = 0;
+        double peakFrequency = 0;
+        for (int i = 0; i < psd.length; i++) {
+            double frequency = i * freqStep;
+            double value = isLogarithmic ? (psd[i] > 0 ? 10 * Math.log10(psd[i]) : -200) : psd[i];
+            series.getData().add(new XYChart.Data<>(frequency, value));
+            if (i > 0 && psd[i] > maxDensity) {
+                maxDensity = psd[i];
+                peakFrequency = frequency;
+            }
+        }
+        peakLabel.setText(String.format("Peak: %.0f Hz", peakFrequency));
+    }
+
+    // Band mapping for the current bin grid, rebuilt only when the grid changes
+    private FractionalOctaveBands bandsFor(int bins, double binSpacing) {
+        if (bands == null || !bands.matches(bins, binSpacing)) {
+            bands = new FractionalOctaveBands(BANDS_PER_OCTAVE, binSpacing, sampleRate / 2, bins, binSpacing);
+            bandValues = new double[bands.getBandCount()];
+        }
+        return bands;
+    }
+
+    // Plots one point per band at its centre frequency; the log scale uses
+    // decibelFactor (20 for magnitudes, 10 for densities) and floor
+    private void plotBands(FractionalOctaveBands octaves, double decibelFactor, double floor) {
+        double maxValue = 0;
+        double peakFrequency = 0;
+        for (int b = 0; b < octaves.getBandCount(); b++) {
+            double value = bandValues[b];
+            double plotted = isLogarithmic ? (value > 0 ? decibelFactor * Math.log10(value) : floor) : value;
+            series.getData().add(new XYChart.Data<>(octaves.getCenterFrequency(b), plotted));
+            if (value > maxValue) {
+                maxValue = value;
+                peakFrequency = octaves.getCenterFrequency(b);
+            }
+        }
+        peakLabel.setText(String.format("Peak: %.0f Hz", peakFrequency));
+    }
+
     private void exportSpectrumData() {
         if (series.getData().isEmpty()) {
             return; // No data to export
@@ -22,6 +22,9 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 public class TotalHarmonicDistortion {
+    // Updates between full-spectrum refreshes while the fundamental is tracked with Goertzel
+    private static final int SPECTRUM_REFRESH_INTERVAL = 10;
+
     private final Stage stage;
     private final LineChart<Number, Number> spectrumChart;
     private final XYChart.Series<Number, Number> spectrumSeries;
@@ -38,6 +41,10 @@ public class TotalHarmonicDistortion {
     private double lastFundamentalFreq;
     private double[] lastHarmonicAmplitudes;
     private FFTCalculator fftCalculator;
+    private int trackedFundamentalIndex;
+    private double trackedFundamentalBin;
+    private int trackedWindowSamples;
+    private int updatesSinceSpectrum;
 
     public TotalHarmonicDistortion() {
         stage = new Stage();
@@ -221,9 +228,11 @@ public class TotalHarmonicDistortion {
     }
 
     private void updateTHD() {
-        spectrumSeries.getData().clear();
         harmonicSeries.getData().clear();
-        if (waveformData == null) return;
+        if (waveformData == null) {
+            spectrumSeries.getData().clear();
+            return;
+        }
 
         double windowSize = windowSizeSlider.getValue() / 1000; // ms to s
         int harmonicCount = (int) harmonicCountSlider.getValue();
@@ -233,50 +242,132 @@ public class TotalHarmonicDistortion {
         int windowSamples = (int) (windowSize * sampleRate);
         if (windowSamples > waveformData.length) windowSamples = waveformData.length;
         if (windowSamples < 2) {
+            spectrumSeries.getData().clear();
             thdLabel.setText("THD: N/A");
             fundamentalLabel.setText("Fundamental: N/A");
             return;
         }
 
+        // Hann window applied during the copy to keep leakage out of the harmonic bins;
+        // the corrected coefficients keep peak magnitudes on the unwindowed scale
+        double[] window = WindowFunction.forType(WindowFunction.Type.HANN, windowSamples).getCorrectedCoefficients();
         double[] windowedWaveform = new double[windowSamples];
         for (int i = 0; i < windowSamples; i++) {
-            windowedWaveform[i] = waveformData[i % waveformData.length];
+            windowedWaveform[i] = waveformData[i % waveformData.length] * window[i];
+        }
+
+        // With few harmonics, a known fundamental and an unchanged window, evaluate
+        // only the needed bins; the displayed spectrum is refreshed periodically
+        if (trackedFundamentalIndex > 0 && trackedWindowSamples == windowSamples
+                && updatesSinceSpectrum < SPECTRUM_REFRESH_INTERVAL
+                && GoertzelBank.isCheaperThanFFT(windowSamples, harmonicCount + 3)
+                && updateTHDFromBins(windowedWaveform, sampleRate, harmonicCount)) {
+            updatesSinceSpectrum++;
+            return;
         }
 
         // Compute FFT
-        double[] fftMagnitude = fftCalculator.computeFFTMagnitude(windowedWaveform);
-        if (fftMagnitude.length == 0) {
+        spectrumSeries.getData().clear();
+        Spectrum spectrum = fftCalculator.computeSpectrum(windowedWaveform, sampleRate);
+        if (spectrum.isEmpty()) {
+            trackedFundamentalIndex = 0;
             thdLabel.setText("THD: N/A");
             fundamentalLabel.setText("Fundamental: N/A");
             return;
         }
+        double[] fftMagnitude = spectrum.getMagnitude();
 
         // Frequency resolution
-        double frequencyResolution = sampleRate / (double) fftMagnitude.length / 2;
-
-        // Find fundamental frequency
-        int fundamentalIndex = 0;
-        double maxMagnitude = 0;
-        for (int i = 1; i < fftMagnitude.length; i++) {
-            if (fftMagnitude[i] > maxMagnitude) {
-                maxMagnitude = fftMagnitude[i];
-                fundamentalIndex = i;
+        double frequencyResolution = spectrum.getBinSpacing();
+
+        // Find fundamental frequency, interpolated between bins so the harmonic
+        // positions and the Hann scalloping loss do not depend on bin alignment
+        int fundamentalIndex = spectrum.getPeakIndex();
+        SpectralPeak fundamental = SpectralPeak.estimate(spectrum, fundamentalIndex, SpectralPeak.Method.PARABOLIC);
+        trackedFundamentalIndex = fundamentalIndex;
+        trackedFundamentalBin = fundamental.getBin();
+        trackedWindowSamples = windowSamples;
+        updatesSinceSpectrum = 0;
+
+        // Harmonic amplitudes; harmonics above Nyquist are left at zero and not plotted
+        double[] harmonicFrequencies = new double[harmonicCount];
+        double[] harmonicMagnitudes = new double[harmonicCount];
+        for (int n = 2; n <= harmonicCount + 1; n++) {
+            int harmonicIndex = (int) Math.round(n * fundamental.getBin());
+            if (harmonicIndex < fftMagnitude.length) {
+                SpectralPeak harmonic = SpectralPeak.estimate(spectrum, harmonicIndex, SpectralPeak.Method.PARABOLIC);
+                harmonicFrequencies[n - 2] = harmonic.getFrequency();
+                harmonicMagnitudes[n - 2] = harmonic.getMagnitude();
             }
         }
-        double fundamentalFreq = fundamentalIndex * frequencyResolution;
+        reportTHD(fundamental.getFrequency(), fundamental.getMagnitude(), harmonicFrequencies, harmonicMagnitudes);
 
-        // Compute harmonic amplitudes
-        double fundamentalPower = fftMagnitude[fundamentalIndex] * fftMagnitude[fundamentalIndex];
-        double harmonicPower = 0;
-        lastHarmonicAmplitudes = new double[harmonicCount];
+        // Update spectrum chart
+        for (int i = 0; i < fftMagnitude.length; i++) {
+            double frequency = i * frequencyResolution;
+            if (frequency > 10000) break;
+            spectrumSeries.getData().add(new XYChart.Data<>(frequency, fftMagnitude[i]));
+        }
+    }
+
+    // Goertzel path: evaluates the tracked fundamental, its neighbours and the
+    // harmonics. Returns false if the fundamental has moved to another bin.
+    private boolean updateTHDFromBins(double[] windowedWaveform, int sampleRate, int harmonicCount) {
+        int windowSamples = windowedWaveform.length;
+        int binCount = windowSamples / 2;
+        int fundamentalIndex = trackedFundamentalIndex;
+        if (fundamentalIndex >= binCount) {
+            return false;
+        }
+
+        // Bins: fundamental - 1, fundamental, fundamental + 1, then harmonics 2..harmonicCount+1
+        // at multiples of the interpolated fundamental, evaluated directly off the bin grid
+        double[] bins = new double[harmonicCount + 3];
+        bins[0] = fundamentalIndex - 1;
+        bins[1] = fundamentalIndex;
+        bins[2] = fundamentalIndex + 1;
         for (int n = 2; n <= harmonicCount + 1; n++) {
-            int harmonicIndex = n * fundamentalIndex;
-            if (harmonicIndex < fftMagnitude.length) {
-                lastHarmonicAmplitudes[n - 2] = fftMagnitude[harmonicIndex];
-                harmonicPower += fftMagnitude[harmonicIndex] * fftMagnitude[harmonicIndex];
-                harmonicSeries.getData().add(new XYChart.Data<>(harmonicIndex * frequencyResolution, fftMagnitude[harmonicIndex]));
+            bins[n + 1] = n * trackedFundamentalBin;
+        }
+        double[] magnitude = new GoertzelBank(windowSamples, bins).magnitudes(windowedWaveform);
+
+        // The peak search skips DC, so only compare against neighbours inside (0, binCount)
+        boolean lowerIsHigher = fundamentalIndex - 1 > 0 && magnitude[0] > magnitude[1];
+        boolean upperIsHigher = fundamentalIndex + 1 < binCount && magnitude[2] > magnitude[1];
+        if (lowerIsHigher || upperIsHigher) {
+            return false;
+        }
+
+        double frequencyResolution = (double) sampleRate / windowSamples;
+        SpectralPeak fundamental = SpectralPeak.parabolic(magnitude[0], magnitude[1], magnitude[2],
+                fundamentalIndex, 0, frequencyResolution);
+        double[] harmonicFrequencies = new double[harmonicCount];
+        double[] harmonicMagnitudes = new double[harmonicCount];
+        for (int n = 2; n <= harmonicCount + 1; n++) {
+            if (bins[n + 1] < binCount) {
+                harmonicFrequencies[n - 2] = bins[n + 1] * frequencyResolution;
+                harmonicMagnitudes[n - 2] = magnitude[n + 1];
+            }
+        }
+        trackedFundamentalBin = fundamental.getBin();
+        reportTHD(fundamental.getFrequency(), fundamental.getMagnitude(), harmonicFrequencies, harmonicMagnitudes);
+        return true;
+    }
+
+    // Computes THD from the fundamental and harmonic magnitudes and updates labels and markers.
+    // Harmonics with a zero frequency lie above Nyquist and are skipped.
+    private void reportTHD(double fundamentalFreq, double fundamentalMagnitude, double[] harmonicFrequencies,
+                           double[] harmonicMagnitudes) {
+        double fundamentalPower = fundamentalMagnitude * fundamentalMagnitude;
+        double harmonicPower = 0;
+        for (int n = 2; n <= harmonicMagnitudes.length + 1; n++) {
+            if (harmonicFrequencies[n - 2] > 0) {
+                double amplitude = harmonicMagnitudes[n - 2];
+                harmonicPower += amplitude * amplitude;
+                harmonicSeries.getData().add(new XYChart.Data<>(harmonicFrequencies[n - 2], amplitude));
             }
         }
+        lastHarmonicAmplitudes = harmonicMagnitudes;
 
         // Compute THD
         double thd = fundamentalPower > 0 ? Math.sqrt(harmonicPower / fundamentalPower) * 100 : 0;
@@ -286,14 +377,7 @@ public class TotalHarmonicDistortion {
         // Update labels
         thdLabel.setText(String.format("THD: %.2f%%", thd));
         fundamentalLabel.setText(String.format("Fundamental: %.1f Hz", fundamentalFreq));
-
-        // Update spectrum chart
-        for (int i = 0; i < fftMagnitude.length; i++) {
-            double frequency = i * frequencyResolution;
-            if (frequency > 10000) break;
-            spectrumSeries.getData().add(new XYChart.Data<>(frequency, fftMagnitude[i]));
-        }
-        harmonicSeries.getData().add(new XYChart.Data<>(fundamentalFreq, fftMagnitude[fundamentalIndex]));
+        harmonicSeries.getData().add(new XYChart.Data<>(fundamentalFreq, fundamentalMagnitude));
     }
 
     private void exportData() {
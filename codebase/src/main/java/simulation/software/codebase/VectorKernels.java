@@ -0,0 +1,265 @@
+package simulation.software.codebase;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD loops on the jdk.incubator.vector API. Only reached through
+// SpectralMath and FFTPlan after SpectralMath.isVectorized() has confirmed
+// the module is present, so this class is never loaded without it.
+class VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    static int laneCount() {
+        return SPECIES.length();
+    }
+
+    static int floatLaneCount() {
+        return FLOAT_SPECIES.length();
+    }
+
+    // One radix-2 butterfly stage; halfSize must be a multiple of the lane
+    // count and stage twiddles W_(2*halfSize)^j are read from index halfSize + j
+    static void radix2Stage(double[] real, double[] imag, int m, int halfSize,
+                            double[] stageCos, double[] stageSin) {
+        int lanes = SPECIES.length();
+        int span = 2 * halfSize;
+        for (int i = 0; i < m; i += span) {
+            for (int j = 0; j < halfSize; j += lanes) {
+                int even = i + j;
+                int odd = even + halfSize;
+                DoubleVector wr = DoubleVector.fromArray(SPECIES, stageCos, halfSize + j);
+                DoubleVector wi = DoubleVector.fromArray(SPECIES, stageSin, halfSize + j);
+                DoubleVector oddReal = DoubleVector.fromArray(SPECIES, real, odd);
+                DoubleVector oddImag = DoubleVector.fromArray(SPECIES, imag, odd);
+                DoubleVector tr = wr.mul(oddReal).sub(wi.mul(oddImag));
+                DoubleVector ti = wr.mul(oddImag).add(wi.mul(oddReal));
+                DoubleVector evenReal = DoubleVector.fromArray(SPECIES, real, even);
+                DoubleVector evenImag = DoubleVector.fromArray(SPECIES, imag, even);
+                evenReal.sub(tr).intoArray(real, odd);
+                evenImag.sub(ti).intoArray(imag, odd);
+                evenReal.add(tr).intoArray(real, even);
+                evenImag.add(ti).intoArray(imag, even);
+            }
+        }
+    }
+
+    static void magnitude(double[] real, double[] imag, double[] out, int count) {
+        int i = 0;
+        int bound = SPECIES.loopBound(count);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector re = DoubleVector.fromArray(SPECIES, real, i);
+            DoubleVector im = DoubleVector.fromArray(SPECIES, imag, i);
+            re.mul(re).add(im.mul(im)).lanewise(VectorOperators.SQRT).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = Math.sqrt(real[i] * real[i] + imag[i] * imag[i]);
+        }
+    }
+
+    static void power(double[] real, double[] imag, double[] out, int count) {
+        int i = 0;
+        int bound = SPECIES.loopBound(count);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector re = DoubleVector.fromArray(SPECIES, real, i);
+            DoubleVector im = DoubleVector.fromArray(SPECIES, imag, i);
+            re.mul(re).add(im.mul(im)).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = real[i] * real[i] + imag[i] * imag[i];
+        }
+    }
+
+    static void phase(double[] real, double[] imag, double[] out, int count) {
+        int i = 0;
+        int bound = SPECIES.loopBound(count);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector re = DoubleVector.fromArray(SPECIES, real, i);
+            DoubleVector im = DoubleVector.fromArray(SPECIES, imag, i);
+            im.lanewise(VectorOperators.ATAN2, re).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = Math.atan2(imag[i], real[i]);
+        }
+    }
+
+    static void decibels(double[] magnitude, double[] out, int count, double floor) {
+        int i = 0;
+        int bound = SPECIES.loopBound(count);
+        DoubleVector floorVector = DoubleVector.broadcast(SPECIES, floor);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector m = DoubleVector.fromArray(SPECIES, magnitude, i);
+            VectorMask<Double> positive = m.compare(VectorOperators.GT, 0);
+            DoubleVector db = m.lanewise(VectorOperators.LOG10).mul(20);
+            floorVector.blend(db, positive).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = magnitude[i] > 0 ? 20 * Math.log10(magnitude[i]) : floor;
+        }
+    }
+
+    // One Stockham radix-4 pass of FloatFFTPlan, vectorized across the stride
+    // dimension q; twiddles for p are read from offset + 4 * p. They are
+    // broadcast once per p and applied with fused multiply-adds, which keeps the
+    // loop body small enough for C2 to inline every vector operation. With
+    // per-use broadcasts and separate multiplies the last stores were left out
+    // of line once other vector code had been compiled, boxing vectors on every call.
+    static void radix4Pass(float[] inReal, float[] inImag, float[] outReal, float[] outImag,
+                           int m, int stride, float[] twiddleReal, float[] twiddleImag, int offset) {
+        int lanes = FLOAT_SPECIES.length();
+        int bound = FLOAT_SPECIES.loopBound(stride);
+        int quarterSpan = stride * m;
+        for (int p = 0; p < m; p++) {
+            int t = offset + 4 * p;
+            float w1r = twiddleReal[t + 1];
+            float w1i = twiddleImag[t + 1];
+            float w2r = twiddleReal[t + 2];
+            float w2i = twiddleImag[t + 2];
+            float w3r = twiddleReal[t + 3];
+            float w3i = twiddleImag[t + 3];
+            FloatVector v1r = FloatVector.broadcast(FLOAT_SPECIES, w1r);
+            FloatVector v1i = FloatVector.broadcast(FLOAT_SPECIES, w1i);
+            FloatVector v2r = FloatVector.broadcast(FLOAT_SPECIES, w2r);
+            FloatVector v2i = FloatVector.broadcast(FLOAT_SPECIES, w2i);
+            FloatVector v3r = FloatVector.broadcast(FLOAT_SPECIES, w3r);
+            FloatVector v3i = FloatVector.broadcast(FLOAT_SPECIES, w3i);
+            int in0 = stride * p;
+            int out0 = 4 * stride * p;
+            int q = 0;
+            for (; q < bound; q += lanes) {
+                int i0 = in0 + q;
+                int i1 = i0 + quarterSpan;
+                int i2 = i1 + quarterSpan;
+                int i3 = i2 + quarterSpan;
+                FloatVector x0r = FloatVector.fromArray(FLOAT_SPECIES, inReal, i0);
+                FloatVector x0i = FloatVector.fromArray(FLOAT_SPECIES, inImag, i0);
+                FloatVector x1r = FloatVector.fromArray(FLOAT_SPECIES, inReal, i1);
+                FloatVector x1i = FloatVector.fromArray(FLOAT_SPECIES, inImag, i1);
+                FloatVector x2r = FloatVector.fromArray(FLOAT_SPECIES, inReal, i2);
+                FloatVector x2i = FloatVector.fromArray(FLOAT_SPECIES, inImag, i2);
+                FloatVector x3r = FloatVector.fromArray(FLOAT_SPECIES, inReal, i3);
+                FloatVector x3i = FloatVector.fromArray(FLOAT_SPECIES, inImag, i3);
+                FloatVector sum02r = x0r.add(x2r);
+                FloatVector sum02i = x0i.add(x2i);
+                FloatVector dif02r = x0r.sub(x2r);
+                FloatVector dif02i = x0i.sub(x2i);
+                FloatVector sum13r = x1r.add(x3r);
+                FloatVector sum13i = x1i.add(x3i);
+                FloatVector dif13r = x1r.sub(x3r);
+                FloatVector dif13i = x1i.sub(x3i);
+
+                int o0 = out0 + q;
+                int o1 = o0 + stride;
+                int o2 = o1 + stride;
+                int o3 = o2 + stride;
+                sum02r.add(sum13r).intoArray(outReal, o0);
+                sum02i.add(sum13i).intoArray(outImag, o0);
+                FloatVector b1r = dif02r.add(dif13i);
+                FloatVector b1i = dif02i.sub(dif13r);
+                b1r.fma(v1r, b1i.mul(v1i).neg()).intoArray(outReal, o1);
+                b1i.fma(v1r, b1r.mul(v1i)).intoArray(outImag, o1);
+                FloatVector b2r = sum02r.sub(sum13r);
+                FloatVector b2i = sum02i.sub(sum13i);
+                b2r.fma(v2r, b2i.mul(v2i).neg()).intoArray(outReal, o2);
+                b2i.fma(v2r, b2r.mul(v2i)).intoArray(outImag, o2);
+                FloatVector b3r = dif02r.sub(dif13i);
+                FloatVector b3i = dif02i.add(dif13r);
+                b3r.fma(v3r, b3i.mul(v3i).neg()).intoArray(outReal, o3);
+                b3i.fma(v3r, b3r.mul(v3i)).intoArray(outImag, o3);
+            }
+            for (; q < stride; q++) {
+                int i0 = in0 + q;
+                int i1 = i0 + quarterSpan;
+                int i2 = i1 + quarterSpan;
+                int i3 = i2 + quarterSpan;
+                float sum02r = inReal[i0] + inReal[i2];
+                float sum02i = inImag[i0] + inImag[i2];
+                float dif02r = inReal[i0] - inReal[i2];
+                float dif02i = inImag[i0] - inImag[i2];
+                float sum13r = inReal[i1] + inReal[i3];
+                float sum13i = inImag[i1] + inImag[i3];
+                float dif13r = inReal[i1] - inReal[i3];
+                float dif13i = inImag[i1] - inImag[i3];
+
+                int o0 = out0 + q;
+                int o1 = o0 + stride;
+                int o2 = o1 + stride;
+                int o3 = o2 + stride;
+                outReal[o0] = sum02r + sum13r;
+                outImag[o0] = sum02i + sum13i;
+                float b1r = dif02r + dif13i;
+                float b1i = dif02i - dif13r;
+                outReal[o1] = w1r * b1r - w1i * b1i;
+                outImag[o1] = w1r * b1i + w1i * b1r;
+                float b2r = sum02r - sum13r;
+                float b2i = sum02i - sum13i;
+                outReal[o2] = w2r * b2r - w2i * b2i;
+                outImag[o2] = w2r * b2i + w2i * b2r;
+                float b3r = dif02r - dif13i;
+                float b3i = dif02i + dif13r;
+                outReal[o3] = w3r * b3r - w3i * b3i;
+                outImag[o3] = w3r * b3i + w3i * b3r;
+            }
+        }
+    }
+
+    static void magnitude(float[] real, float[] imag, float[] out, int count) {
+        int i = 0;
+        int bound = FLOAT_SPECIES.loopBound(count);
+        for (; i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector re = FloatVector.fromArray(FLOAT_SPECIES, real, i);
+            FloatVector im = FloatVector.fromArray(FLOAT_SPECIES, imag, i);
+            re.mul(re).add(im.mul(im)).lanewise(VectorOperators.SQRT).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = (float) Math.sqrt(real[i] * real[i] + imag[i] * imag[i]);
+        }
+    }
+
+    static void power(float[] real, float[] imag, float[] out, int count) {
+        int i = 0;
+        int bound = FLOAT_SPECIES.loopBound(count);
+        for (; i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector re = FloatVector.fromArray(FLOAT_SPECIES, real, i);
+            FloatVector im = FloatVector.fromArray(FLOAT_SPECIES, imag, i);
+            re.mul(re).add(im.mul(im)).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = real[i] * real[i] + imag[i] * imag[i];
+        }
+    }
+
+    static void phase(float[] real, float[] imag, float[] out, int count) {
+        int i = 0;
+        int bound = FLOAT_SPECIES.loopBound(count);
+        for (; i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector re = FloatVector.fromArray(FLOAT_SPECIES, real, i);
+            FloatVector im = FloatVector.fromArray(FLOAT_SPECIES, imag, i);
+            im.lanewise(VectorOperators.ATAN2, re).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = (float) Math.atan2(imag[i], real[i]);
+        }
+    }
+
+    static void decibels(float[] magnitude, float[] out, int count, float floor) {
+        int i = 0;
+        int bound = FLOAT_SPECIES.loopBound(count);
+        FloatVector floorVector = FloatVector.broadcast(FLOAT_SPECIES, floor);
+        for (; i < bound; i += FLOAT_SPECIES.length()) {
+            FloatVector m = FloatVector.fromArray(FLOAT_SPECIES, magnitude, i);
+            VectorMask<Float> positive = m.compare(VectorOperators.GT, 0);
+            FloatVector db = m.lanewise(VectorOperators.LOG10).mul(20);
+            floorVector.blend(db, positive).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = magnitude[i] > 0 ? (float) (20 * Math.log10(magnitude[i])) : floor;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,204 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Welch power spectral density: the signal is cut into overlapping windowed
+// segments whose periodograms are averaged, trading frequency resolution for
+// a much lower variance than a single FFT. Used offline through estimate(),
+// or in streaming mode through update(), which keeps a moving average over
+// the most recent averagingCount segments. Streaming state is not thread-safe.
+public class WelchPSD {
+    private final int segmentLength;
+    private final int hop;
+    private final int averagingCount;
+    private final double sampleRate;
+    private final int binCount;
+    private final double[] window;
+
+    // Converts |X_k|^2 of a windowed segment into a one-sided density
+    private final double densityScale;
+
+    // Streaming state: the last averagingCount periodograms and their running sum.
+    // Slots are allocated once and overwritten in place as segments are evicted.
+    private final double[][] history;
+    private final double[] historySum;
+    private int historySlot;
+    private int historySize;
+
+    // Streaming scratch, so a steady-state update does not allocate
+    private final FFTPlan plan;
+    private final double[] real;
+    private final double[] imag;
+    private final FFTWorkspace workspace = new FFTWorkspace();
+
+    // Hann-windowed estimator; overlap is the fraction of a segment shared with the next one, in [0, 1)
+    public WelchPSD(int segmentLength, double overlap, int averagingCount, double sampleRate) {
+        this(segmentLength, overlap, averagingCount, sampleRate, WindowFunction.Type.HANN);
+    }
+
+    public WelchPSD(int segmentLength, double overlap, int averagingCount, double sampleRate,
+                    WindowFunction.Type windowType) {
+        if (segmentLength < 2 || overlap < 0 || overlap >= 1 || averagingCount < 1 || sampleRate <= 0
+                || windowType == null) {
+            throw new IllegalArgumentException("Invalid Welch configuration");
+        }
+        this.segmentLength = segmentLength;
+        this.hop = Math.max(1, (int) Math.round(segmentLength * (1 - overlap)));
+        this.averagingCount = averagingCount;
+        this.sampleRate = sampleRate;
+        this.binCount = segmentLength / 2;
+
+        // Raw coefficients: the density scale below already corrects for the window's power gain
+        WindowFunction windowFunction = WindowFunction.forType(windowType, segmentLength);
+        window = windowFunction.getCoefficients();
+        densityScale = 1 / (sampleRate * segmentLength * windowFunction.getPowerGain());
+
+        history = new double[averagingCount][];
+        historySum = new double[binCount];
+        plan = FFTPlan.forSize(segmentLength);
+        real = new double[binCount + 1];
+        imag = new double[binCount + 1];
+    }
+
+    public int getSegmentLength() {
+        return segmentLength;
+    }
+
+    // Samples between the starts of consecutive segments
+    public int getHop() {
+        return hop;
+    }
+
+    public double getBinSpacing() {
+        return sampleRate / segmentLength;
+    }
+
+    // Segments that fit in a signal of the given length
+    public int segmentCount(int length) {
+        return length < segmentLength ? 0 : (length - segmentLength) / hop + 1;
+    }
+
+    // Density of the last averagingCount segments of signal, one value per bin
+    // below Nyquist. Segments are transformed in parallel, each task summing into
+    // its own accumulator. Returns an empty array if no segment fits.
+    public double[] estimate(double[] signal) {
+        int segments = signal == null ? 0 : segmentCount(signal.length);
+        if (segments == 0) {
+            return new double[0];
+        }
+        int first = Math.max(0, segments - averagingCount);
+        int count = segments - first;
+
+        int segmentsPerTask = Math.max(1, (1 << 14) / segmentLength);
+        int tasks = (count + segmentsPerTask - 1) / segmentsPerTask;
+        IntStream taskRange = IntStream.range(0, tasks);
+        if (tasks > 1 && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            taskRange = taskRange.parallel();
+        }
+        double[] psd = taskRange.mapToObj(task -> {
+            double[] sum = new double[binCount];
+            double[] real = new double[binCount + 1];
+            double[] imag = new double[binCount + 1];
+            FFTWorkspace workspace = new FFTWorkspace();
+            int from = first + task * segmentsPerTask;
+            int to = Math.min(segments, from + segmentsPerTask);
+            for (int segment = from; segment < to; segment++) {
+                accumulatePeriodogram(signal, segment * hop, real, imag, workspace, sum);
+            }
+            return sum;
+        }).reduce(WelchPSD::addInto).orElseGet(() -> new double[binCount]);
+
+        double scale = 1.0 / count;
+        for (int k = 0; k < binCount; k++) {
+            psd[k] *= scale;
+        }
+        return psd;
+    }
+
+    // Streaming mode: folds every segment of block into the moving average and
+    // returns the number of segments added. Each block is segmented on its own,
+    // since consecutive waveform snapshots are not contiguous in time. Segments
+    // are transformed one after another straight into the history slot they
+    // replace, so once the history is full an update allocates nothing.
+    public int update(double[] block) {
+        int segments = block == null ? 0 : segmentCount(block.length);
+        if (segments == 0) {
+            return 0;
+        }
+        // Only the newest averagingCount segments can survive in the history
+        int first = Math.max(0, segments - averagingCount);
+        for (int segment = first; segment < segments; segment++) {
+            double[] periodogram = history[historySlot];
+            if (periodogram == null) {
+                periodogram = new double[binCount];
+                history[historySlot] = periodogram;
+            }
+            if (historySize == averagingCount) {
+                // Take the evicted periodogram out of the sum before its slot is reused
+                for (int k = 0; k < binCount; k++) {
+                    historySum[k] -= periodogram[k];
+                }
+            } else {
+                historySize++;
+            }
+            Arrays.fill(periodogram, 0);
+            accumulatePeriodogram(block, segment * hop, real, imag, workspace, periodogram);
+            addInto(historySum, periodogram);
+            historySlot = (historySlot + 1) % averagingCount;
+
+            // Rebuild the sum once per lap so add/subtract rounding cannot accumulate
+            if (historySlot == 0) {
+                Arrays.fill(historySum, 0);
+                for (int i = 0; i < historySize; i++) {
+                    addInto(historySum, history[i]);
+                }
+            }
+        }
+        return segments - first;
+    }
+
+    // Segments currently in the streaming average
+    public int getAveragedSegments() {
+        return historySize;
+    }
+
+    // Current streaming average, or an empty array before the first segment
+    public double[] getPSD() {
+        if (historySize == 0) {
+            return new double[0];
+        }
+        double[] psd = new double[binCount];
+        double scale = 1.0 / historySize;
+        for (int k = 0; k < binCount; k++) {
+            psd[k] = historySum[k] * scale;
+        }
+        return psd;
+    }
+
+    // Drops the streaming history; its slots are kept for reuse
+    public void reset() {
+        Arrays.fill(historySum, 0);
+        historySlot = 0;
+        historySize = 0;
+    }
+
+    // Transforms one windowed segment and adds its density to sum
+    private void accumulatePeriodogram(double[] signal, int offset, double[] real, double[] imag,
+                                       FFTWorkspace workspace, double[] sum) {
+        plan.realTransform(signal, offset, window, real, imag, workspace);
+        for (int k = 0; k < binCount; k++) {
+            // One-sided: every bin but DC also carries the power of its negative frequency
+            double scale = k == 0 ? densityScale : 2 * densityScale;
+            sum[k] += (real[k] * real[k] + imag[k] * imag[k]) * scale;
+        }
+    }
+
+    private static double[] addInto(double[] target, double[] source) {
+        for (int k = 0; k < target.length; k++) {
+            target[k] += source[k];
+        }
+        return target;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package simulation.software.codebase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Spectral analysis windows with cached coefficients. Windows are periodic
+// (DFT-even), the right form for FFT analysis. Each instance carries the raw
+// coefficients plus a copy pre-multiplied by 1 / coherent gain, so a windowed
+// tone reads back its unwindowed peak magnitude, and the ENBW needed to
+// correct noise and power readings.
+public class WindowFunction {
+    public enum Type { HANN, BLACKMAN_HARRIS, FLAT_TOP, KAISER }
+
+    // Kaiser shape parameter; 9 puts the first sidelobe near -90 dB
+    private static final double KAISER_BETA = 9.0;
+
+    // Upper bound on the number of (type, length) windows kept in the cache
+    private static final int MAX_CACHED_WINDOWS = 32;
+
+    // Least-recently-used cache keyed by type ordinal and length
+    private static final Map<Long, WindowFunction> CACHE = new LinkedHashMap<Long, WindowFunction>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, WindowFunction> eldest) {
+            return size() > MAX_CACHED_WINDOWS;
+        }
+    };
+
+    private final Type type;
+    private final double[] coefficients;
+    private final double[] correctedCoefficients;
+    private final double coherentGain;
+    private final double powerGain;
+
+    private WindowFunction(Type type, int length) {
+        this.type = type;
+        coefficients = new double[length];
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < length; i++) {
+            coefficients[i] = coefficient(type, i, length);
+            sum += coefficients[i];
+            sumSquares += coefficients[i] * coefficients[i];
+        }
+        coherentGain = sum / length;
+        powerGain = sumSquares / length;
+
+        correctedCoefficients = new double[length];
+        for (int i = 0; i < length; i++) {
+            correctedCoefficients[i] = coefficients[i] / coherentGain;
+        }
+    }
+
+    // Returns the shared window of a type and length
+    public static WindowFunction forType(Type type, int length) {
+        if (type == null || length < 1) {
+            throw new IllegalArgumentException("Invalid window: " + type + ", length " + length);
+        }
+        Long key = ((long) type.ordinal() << 32) | length;
+        synchronized (CACHE) {
+            WindowFunction window = CACHE.get(key);
+            if (window == null) {
+                window = new WindowFunction(type, length);
+                CACHE.put(key, window);
+            }
+            return window;
+        }
+    }
+
+    private static double coefficient(Type type, int i, int length) {
+        double x = 2 * Math.PI * i / length;
+        switch (type) {
+            case HANN:
+                return 0.5 - 0.5 * Math.cos(x);
+            case BLACKMAN_HARRIS:
+                return 0.35875 - 0.48829 * Math.cos(x) + 0.14128 * Math.cos(2 * x) - 0.01168 * Math.cos(3 * x);
+            case FLAT_TOP:
+                return 0.21557895 - 0.41663158 * Math.cos(x) + 0.277263158 * Math.cos(2 * x)
+                        - 0.083578947 * Math.cos(3 * x) + 0.006947368 * Math.cos(4 * x);
+            case KAISER:
+                double r = 2.0 * i / length - 1;
+                return besselI0(KAISER_BETA * Math.sqrt(1 - r * r)) / besselI0(KAISER_BETA);
+            default:
+                throw new IllegalArgumentException("Unknown window type: " + type);
+        }
+    }
+
+    // Modified Bessel function of the first kind, order 0, by its power series
+    private static double besselI0(double x) {
+        double term = 1;
+        double sum = 1;
+        double quarterSquare = x * x / 4;
+        for (int k = 1; term > 1e-17 * sum; k++) {
+            term *= quarterSquare / ((double) k * k);
+            sum += term;
+        }
+        return sum;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getLength() {
+        return coefficients.length;
+    }
+
+    // Raw coefficients; shared, do not modify
+    public double[] getCoefficients() {
+        return coefficients;
+    }
+
+    // Coefficients divided by the coherent gain, so tone peaks keep their amplitude; shared, do not modify
+    public double[] getCorrectedCoefficients() {
+        return correctedCoefficients;
+    }
+
+    // Mean coefficient; the factor by which the window scales a bin-centred tone
+    public double getCoherentGain() {
+        return coherentGain;
+    }
+
+    // Mean squared coefficient; the factor by which the window scales broadband power
+    public double getPowerGain() {
+        return powerGain;
+    }
+
+    // Equivalent noise bandwidth in bins
+    public double getEnbw() {
+        return powerGain / (coherentGain * coherentGain);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package simulation.software.codebase;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChirpZTransformTest {
+    // Zoom bins against the DFT sum evaluated directly at each grid frequency
+    @Test
+    void zoomGridMatchesDirectEvaluation() {
+        assertMatchesDirectEvaluation(300, 1000, 120.5, 0.37, 50);
+    }
+
+    // N + M - 1 already a power of 2, so the convolution runs at exactly that size
+    // with no spare zeros between the wrapped filter halves
+    @Test
+    void exactPowerOfTwoSpanMatchesDirectEvaluation() {
+        assertMatchesDirectEvaluation(40, 1000, 120.5, 0.37, 25);
+        assertMatchesDirectEvaluation(300, 1000, 50, 1.5, 213);
+        assertMatchesDirectEvaluation(1, 1000, 10, 1, 1);
+        assertMatchesDirectEvaluation(1, 1000, 10, 1, 2);
+    }
+
+    // One calculator zooming on different bands from several threads
+    @Test
+    void sharedCalculatorGivesConsistentZooms() throws Exception {
+        FFTCalculator calculator = new FFTCalculator();
+        double[] input = NaiveDFT.noise(512, 7);
+        double[] starts = {50, 100, 150, 200};
+        double[][] expected = new double[starts.length][];
+        for (int i = 0; i < starts.length; i++) {
+            expected[i] = new FFTCalculator().computeZoomSpectrum(input, 1000, starts[i], starts[i] + 10, 64)
+                    .getMagnitude();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[16];
+            for (int t = 0; t < futures.length; t++) {
+                int band = t % starts.length;
+                futures[t] = executor.submit(() -> {
+                    for (int r = 0; r < 50; r++) {
+                        double[] magnitude = calculator.computeZoomSpectrum(input, 1000, starts[band],
+                                starts[band] + 10, 64).getMagnitude();
+                        for (int k = 0; k < magnitude.length; k++) {
+                            assertEquals(expected[band][k], magnitude[k], 1e-9);
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertMatchesDirectEvaluation(int n, double sampleRate, double startFrequency,
+                                                      double binSpacing, int binCount) {
+        double[] input = NaiveDFT.noise(n, 13);
+        Spectrum zoom = new ChirpZTransform(n, sampleRate, startFrequency, binSpacing, binCount).transform(input);
+        double scale = 0;
+        double error = 0;
+        for (int k = 0; k < binCount; k++) {
+            double frequency = startFrequency + binSpacing * k;
+            double real = 0;
+            double imag = 0;
+            for (int i = 0; i < n; i++) {
+                double angle = -2 * Math.PI * frequency * i / sampleRate;
+                real += input[i] * Math.cos(angle);
+                imag += input[i] * Math.sin(angle);
+            }
+            scale = Math.max(scale, Math.hypot(real, imag));
+            error = Math.max(error, Math.hypot(zoom.getReal(k) - real, zoom.getImag(k) - imag));
+        }
+        assertTrue(error / scale < 1e-10, n + " samples, " + binCount + " bins: relative error " + error / scale);
+    }
+}
\ No newline at end of file
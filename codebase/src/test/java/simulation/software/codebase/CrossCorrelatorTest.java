@@ -0,0 +1,75 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrossCorrelatorTest {
+    // Unweighted correlation equals the direct sum at every lag, including the
+    // outermost ones when length + maxLag - 1 is itself a power of 2
+    @Test
+    void correlationMatchesDirectSum() {
+        int[][] configurations = {{5, 4}, {513, 512}, {1000, 100}, {300, 299}};
+        for (int[] configuration : configurations) {
+            int length = configuration[0];
+            int maxLag = configuration[1];
+            double[] reference = NaiveDFT.noise(length, length);
+            double[] signal = NaiveDFT.noise(length, -length);
+            CrossCorrelator correlator = new CrossCorrelator(length, maxLag, CrossCorrelator.Weighting.NONE);
+            int span = length + maxLag;
+            assertTrue(correlator.getFftSize() >= span && correlator.getFftSize() / 2 < span);
+            double[] lags = correlator.correlate(reference, signal);
+            for (int lag = -maxLag; lag <= maxLag; lag++) {
+                double expected = 0;
+                for (int n = Math.max(0, -lag); n < Math.min(length, length - lag); n++) {
+                    expected += reference[n] * signal[n + lag];
+                }
+                assertEquals(expected, lags[lag + maxLag], 1e-9, "length " + length + ", lag " + lag);
+            }
+        }
+    }
+
+    // GCC-PHAT recovers integer and fractional delays of a broadband signal in noise
+    @Test
+    void phatEstimatesDelay() {
+        int length = 4096;
+        double[] source = NaiveDFT.noise(length + 200, 1);
+        double[] noise = NaiveDFT.noise(length, 2);
+        double[] reference = new double[length];
+        System.arraycopy(source, 100, reference, 0, length);
+        for (double delay : new double[]{-37, 0, 12, 63.5, 80.25}) {
+            double[] signal = new double[length];
+            for (int i = 0; i < length; i++) {
+                signal[i] = interpolate(source, 100 + i - delay) + 0.1 * noise[i];
+            }
+            CrossCorrelator correlator = new CrossCorrelator(length, 128, CrossCorrelator.Weighting.PHAT);
+            double estimate = correlator.estimateDelay(reference, 0, signal, 0);
+            assertEquals(delay, estimate, 0.15, "delay " + delay);
+            assertTrue(correlator.getPeakValue() > 0.3, "coherence " + correlator.getPeakValue());
+        }
+    }
+
+    @Test
+    void unrelatedSignalsHaveLowCoherence() {
+        CrossCorrelator correlator = new CrossCorrelator(4096, 128, CrossCorrelator.Weighting.PHAT);
+        correlator.estimateDelay(NaiveDFT.noise(4096, 3), 0, NaiveDFT.noise(4096, 4), 0);
+        assertTrue(correlator.getPeakValue() < 0.1, "coherence " + correlator.getPeakValue());
+    }
+
+    // Band-limited interpolation of x at a fractional position (windowed sinc)
+    private static double interpolate(double[] x, double position) {
+        int center = (int) Math.floor(position);
+        double sum = 0;
+        for (int i = center - 32; i <= center + 32; i++) {
+            if (i < 0 || i >= x.length) {
+                continue;
+            }
+            double t = position - i;
+            double sinc = t == 0 ? 1 : Math.sin(Math.PI * t) / (Math.PI * t);
+            double window = 0.5 + 0.5 * Math.cos(Math.PI * t / 33);
+            sum += x[i] * sinc * window;
+        }
+        return sum;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Each FFTPlan kernel against the naive DFT on random complex input
+class FFTPlanTest {
+    private static final double TOLERANCE = 1e-12;
+
+    @Test
+    void radix2MatchesNaiveDft() {
+        assertKernelMatchesDft(FFTPlan.Kernel.RADIX_2, 2, 4, 8, 16, 64, 256, 1024);
+    }
+
+    @Test
+    void radix4MatchesNaiveDft() {
+        assertKernelMatchesDft(FFTPlan.Kernel.RADIX_4, 2, 4, 8, 16, 32, 64, 512, 2048);
+    }
+
+    @Test
+    void splitRadixMatchesNaiveDft() {
+        assertKernelMatchesDft(FFTPlan.Kernel.SPLIT_RADIX, 2, 4, 8, 16, 32, 64, 512, 2048);
+    }
+
+    // Only runs when the JVM is started with --add-modules jdk.incubator.vector
+    @Test
+    void simdRadix2MatchesNaiveDft() {
+        assumeTrue(SpectralMath.isVectorized(), "Vector API not available");
+        assertKernelMatchesDft(FFTPlan.Kernel.SIMD_RADIX_2, 2, 4, 8, 16, 32, 64, 128, 512, 2048);
+    }
+
+    @Test
+    void fourStepMatchesNaiveDft() {
+        assertKernelMatchesDft(FFTPlan.Kernel.FOUR_STEP, 4, 8, 16, 32, 64, 128, 512, 2048);
+    }
+
+    // Sizes too large for the naive DFT, from 2^16 to the parallel path, against radix-4
+    @Test
+    void fourStepMatchesRadix4OnLargeSizes() {
+        for (int n : new int[]{1 << 16, 1 << 17, 1 << 19}) {
+            double[] real = NaiveDFT.noise(n, n);
+            double[] imag = NaiveDFT.noise(n, -n);
+            double[] expectedReal = real.clone();
+            double[] expectedImag = imag.clone();
+            FFTPlan plan = FFTPlan.forSize(n);
+            plan.transform(expectedReal, expectedImag, FFTPlan.Kernel.RADIX_4);
+            plan.transform(real, imag, FFTPlan.Kernel.FOUR_STEP);
+            double error = NaiveDFT.relativeError(expectedReal, expectedImag, real, imag, n);
+            assertTrue(error < TOLERANCE, "FOUR_STEP size " + n + ": relative error " + error);
+        }
+    }
+
+    @Test
+    void mixedRadixMatchesNaiveDft() {
+        assertKernelMatchesDft(FFTPlan.Kernel.MIXED_RADIX, 3, 5, 6, 7, 12, 15, 30, 49, 60, 105, 210, 360, 1000);
+    }
+
+    @Test
+    void bluesteinMatchesNaiveDft() {
+        assertKernelMatchesDft(FFTPlan.Kernel.BLUESTEIN, 11, 13, 17, 22, 97, 101, 254, 1009);
+    }
+
+    @Test
+    void mixedRadixTablesAreOnlyBuiltForOtherSizes() {
+        for (int n : new int[]{1, 2, 64, 4096}) {
+            assertFalse(FFTPlan.forSize(n).supports(FFTPlan.Kernel.MIXED_RADIX), "size " + n);
+            assertFalse(FFTPlan.forSize(n).supports(FFTPlan.Kernel.BLUESTEIN), "size " + n);
+        }
+        assertTrue(FFTPlan.forSize(360).supports(FFTPlan.Kernel.MIXED_RADIX));
+        assertFalse(FFTPlan.forSize(360).supports(FFTPlan.Kernel.BLUESTEIN));
+        assertFalse(FFTPlan.forSize(97).supports(FFTPlan.Kernel.MIXED_RADIX));
+        assertTrue(FFTPlan.forSize(97).supports(FFTPlan.Kernel.BLUESTEIN));
+    }
+
+    @Test
+    void realTransformMatchesNaiveDft() {
+        assertRealTransformMatchesDft(2, 4, 8, 16, 64, 256, 1024);
+        assertRealTransformMatchesDft(3, 5, 6, 11, 12, 30, 97, 100, 254, 1000);
+    }
+
+    // inverseRealTransform(realTransform(x)) == x, including odd and Bluestein sizes
+    @Test
+    void realTransformRoundTrips() {
+        for (int n : new int[]{1, 2, 3, 4, 5, 8, 12, 30, 97, 256, 1000, 4096, 1 << 16}) {
+            double[] input = NaiveDFT.noise(n, n);
+            double[] real = new double[n / 2 + 1];
+            double[] imag = new double[n / 2 + 1];
+            double[] output = new double[n];
+            FFTPlan plan = FFTPlan.forSize(n);
+            plan.realTransform(input, real, imag);
+            plan.inverseRealTransform(real, imag, output);
+            for (int i = 0; i < n; i++) {
+                assertEquals(input[i], output[i], TOLERANCE, "size " + n + ", sample " + i);
+            }
+        }
+    }
+
+    // Bins 0..N/2 of the real transform against the DFT of the same samples
+    private static void assertRealTransformMatchesDft(int... sizes) {
+        for (int n : sizes) {
+            double[] input = NaiveDFT.noise(n, n);
+            double[][] expected = NaiveDFT.transform(input, new double[n]);
+            double[] real = new double[n / 2 + 1];
+            double[] imag = new double[n / 2 + 1];
+            FFTPlan.forSize(n).realTransform(input, real, imag);
+            double error = NaiveDFT.relativeError(expected[0], expected[1], real, imag, n / 2 + 1);
+            assertTrue(error < TOLERANCE, "real transform size " + n + ": relative error " + error);
+        }
+    }
+
+    private static void assertKernelMatchesDft(FFTPlan.Kernel kernel, int... sizes) {
+        for (int n : sizes) {
+            double[] real = NaiveDFT.noise(n, n);
+            double[] imag = NaiveDFT.noise(n, -n);
+            double[][] expected = NaiveDFT.transform(real, imag);
+            FFTPlan.forSize(n).transform(real, imag, kernel);
+            double error = NaiveDFT.relativeError(expected[0], expected[1], real, imag, n);
+            assertTrue(error < TOLERANCE, kernel + " size " + n + ": relative error " + error);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package simulation.software.codebase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Wisdom is process-wide, so each test points sweepgen.fft.wisdom at a file in
+// a temporary directory, starts from an empty table and clears it afterwards.
+class FFTWisdomTest {
+    private static final String PROPERTY = "sweepgen.fft.wisdom";
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private String previousLocation;
+
+    @BeforeEach
+    void useTemporaryFile() {
+        file = directory.resolve("fft-wisdom.properties");
+        previousLocation = System.getProperty(PROPERTY);
+        System.setProperty(PROPERTY, file.toString());
+        FFTWisdom.clear();
+    }
+
+    @AfterEach
+    void restoreLocation() {
+        FFTWisdom.clear();
+        if (previousLocation == null) {
+            System.clearProperty(PROPERTY);
+        } else {
+            System.setProperty(PROPERTY, previousLocation);
+        }
+    }
+
+    @Test
+    void tunedKernelsSurviveSaveAndReload() {
+        FFTPlan.Kernel tuned = FFTWisdom.tune(1024);
+        assertTrue(FFTPlan.forSize(1024).supports(tuned));
+        assertEquals(tuned, FFTWisdom.lookup(1024));
+        // Sizes with a single applicable kernel are not recorded
+        assertEquals(FFTPlan.Kernel.BLUESTEIN, FFTWisdom.tune(97));
+        assertNull(FFTWisdom.lookup(97));
+
+        // A choice the heuristics would not make, to show selectKernel reads the record
+        FFTPlan.Kernel stored = FFTPlan.defaultKernel(4096) == FFTPlan.Kernel.RADIX_2
+                ? FFTPlan.Kernel.RADIX_4 : FFTPlan.Kernel.RADIX_2;
+        FFTWisdom.record(4096, stored);
+        assertTrue(FFTWisdom.save());
+        assertTrue(Files.isRegularFile(file));
+
+        FFTWisdom.clear();
+        assertEquals(0, FFTWisdom.size());
+        assertEquals(FFTPlan.defaultKernel(4096), FFTPlan.selectKernel(4096));
+
+        assertTrue(FFTWisdom.reload());
+        assertEquals(2, FFTWisdom.size());
+        assertEquals(tuned, FFTWisdom.lookup(1024));
+        assertEquals(stored, FFTWisdom.lookup(4096));
+        assertEquals(stored, FFTPlan.selectKernel(4096));
+
+        // Transforms planned from the record are still correct
+        double[] real = NaiveDFT.noise(4096, 1);
+        double[] imag = NaiveDFT.noise(4096, 2);
+        double[][] expected = NaiveDFT.transform(real, imag);
+        FFTPlan.forSize(4096).transform(real, imag);
+        assertTrue(NaiveDFT.relativeError(expected[0], expected[1], real, imag, 4096) < 1e-12);
+    }
+
+    @Test
+    void fileFromAnotherHostIsIgnored() throws IOException {
+        write("host=other-arch/" + (Runtime.getRuntime().availableProcessors() + 1) + "cpu/scalar",
+                "4096=RADIX_2",
+                "4096=RADIX_4");
+        assertTrue(FFTWisdom.reload());
+        assertEquals(0, FFTWisdom.size());
+        assertEquals(FFTPlan.defaultKernel(4096), FFTPlan.selectKernel(4096));
+    }
+
+    @Test
+    void corruptFileYieldsNoEntries() throws IOException {
+        // Not UTF-8
+        Files.write(file, new byte[]{'h', 'o', 's', 't', '=', (byte) 0xC3, (byte) 0x28, '\n'});
+        assertTrue(FFTWisdom.reload());
+        assertEquals(0, FFTWisdom.size());
+
+        // Malformed unicode escape, which Properties reports as IllegalArgumentException
+        write("host=" + FFTWisdom.hostFingerprint(), "1024=RADIX_2", "2048=\\u00ZZ");
+        assertTrue(FFTWisdom.reload());
+        assertEquals(0, FFTWisdom.size());
+        assertEquals(FFTPlan.defaultKernel(1024), FFTPlan.selectKernel(1024));
+    }
+
+    @Test
+    void malformedLinesAreSkipped() throws IOException {
+        write("host=" + FFTWisdom.hostFingerprint(),
+                "1024=RADIX_2",
+                "size=RADIX_2",
+                "2048=NOT_A_KERNEL",
+                "-4=RADIX_2");
+        assertTrue(FFTWisdom.reload());
+        assertEquals(1, FFTWisdom.size());
+        assertEquals(FFTPlan.Kernel.RADIX_2, FFTPlan.selectKernel(1024));
+    }
+
+    // Stored kernels that a plan of that size does not support fall back to the heuristics
+    @Test
+    void unsupportedKernelsFallBackToDefault() throws IOException {
+        int[] sizes = {1024, 1000, 97, 2048};
+        FFTPlan.Kernel[] kernels = {
+                FFTPlan.Kernel.MIXED_RADIX,
+                FFTPlan.Kernel.BLUESTEIN,
+                FFTPlan.Kernel.RADIX_4,
+                SpectralMath.isVectorized() ? FFTPlan.Kernel.MIXED_RADIX : FFTPlan.Kernel.SIMD_RADIX_2
+        };
+        String[] lines = new String[sizes.length + 1];
+        lines[0] = "host=" + FFTWisdom.hostFingerprint();
+        for (int i = 0; i < sizes.length; i++) {
+            assertFalse(FFTPlan.forSize(sizes[i]).supports(kernels[i]), sizes[i] + " " + kernels[i]);
+            lines[i + 1] = sizes[i] + "=" + kernels[i];
+            int size = sizes[i];
+            FFTPlan.Kernel kernel = kernels[i];
+            assertThrows(IllegalArgumentException.class, () -> FFTWisdom.record(size, kernel));
+        }
+        write(lines);
+
+        assertTrue(FFTWisdom.reload());
+        assertEquals(0, FFTWisdom.size());
+        for (int size : sizes) {
+            assertEquals(FFTPlan.defaultKernel(size), FFTPlan.selectKernel(size));
+        }
+    }
+
+    @Test
+    void missingFileIsNotReloaded() {
+        FFTWisdom.record(1024, FFTPlan.Kernel.RADIX_2);
+        assertFalse(FFTWisdom.reload());
+        assertEquals(FFTPlan.Kernel.RADIX_2, FFTPlan.selectKernel(1024));
+    }
+
+    private void write(String... lines) throws IOException {
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package simulation.software.codebase;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Steady-state calls that take an FFTWorkspace must not allocate. Bytes are
+// counted per thread with ThreadMXBean after a JIT warm-up; the best of
+// several rounds is used, so a late compilation or deoptimisation in one
+// round does not fail the test, but a real allocation in the call does.
+class FFTWorkspaceTest {
+    private static final int WARMUP_CALLS = 10000;
+    private static final int MEASURED_CALLS = 200;
+    private static final int ROUNDS = 5;
+
+    // Sizes covering split-radix, radix-4/SIMD, mixed-radix and Bluestein plans
+    private static final int[] SIZES = {1024, 4096, 1000, 97};
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void enableAllocationCounting() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "Per-thread allocation counting not available");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Per-thread allocation counting not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void complexTransformDoesNotAllocate() {
+        for (int n : SIZES) {
+            FFTPlan plan = FFTPlan.forSize(n);
+            double[] real = NaiveDFT.noise(n, 1);
+            double[] imag = NaiveDFT.noise(n, 2);
+            FFTWorkspace workspace = new FFTWorkspace();
+            assertNoAllocation("complex transform size " + n, () -> plan.transform(real, imag, workspace));
+        }
+    }
+
+    @Test
+    void calculatorWorkspaceOverloadsDoNotAllocate() {
+        for (int n : SIZES) {
+            double[] input = NaiveDFT.noise(n, n);
+            float[] floatInput = new float[n];
+            for (int i = 0; i < n; i++) {
+                floatInput[i] = (float) input[i];
+            }
+            double[] bins = new double[n / 2];
+            float[] floatBins = new float[n / 2];
+            double[] real = new double[n / 2 + 1];
+            double[] imag = new double[n / 2 + 1];
+            double[] output = new double[n];
+            FFTCalculator calculator = new FFTCalculator();
+            FFTCalculator single = new FFTCalculator(FFTCalculator.Precision.SINGLE);
+            FFTWorkspace workspace = new FFTWorkspace();
+            FFTPlan.forSize(n).realTransform(input, real, imag);
+
+            assertNoAllocation("magnitude size " + n, () -> calculator.computeFFTMagnitude(input, bins, workspace));
+            assertNoAllocation("phase size " + n, () -> calculator.computeFFTPhase(input, bins, workspace));
+            assertNoAllocation("power size " + n, () -> calculator.computeFFTPower(input, bins, workspace));
+            assertNoAllocation("single magnitude size " + n,
+                    () -> single.computeFFTMagnitude(input, bins, workspace));
+            assertNoAllocation("float magnitude size " + n,
+                    () -> calculator.computeFFTMagnitude(floatInput, floatBins, workspace));
+            assertNoAllocation("inverse size " + n,
+                    () -> calculator.computeInverse(real, imag, output, n, workspace));
+        }
+    }
+
+    @Test
+    void slidingDFTResyncDoesNotAllocate() {
+        for (int n : SIZES) {
+            SlidingDFT dft = new SlidingDFT(n, 48000);
+            dft.push(NaiveDFT.noise(n / 2, n));
+            assertNoAllocation("sliding DFT resync size " + n, dft::resync);
+        }
+    }
+
+    // Once the history is full, new segments overwrite the evicted periodograms
+    @Test
+    void welchStreamingUpdateDoesNotAllocate() {
+        for (int n : SIZES) {
+            WelchPSD welch = new WelchPSD(n, 0.5, 4, 48000);
+            double[] block = NaiveDFT.noise(3 * n, n);
+            assertNoAllocation("Welch update size " + n, () -> welch.update(block));
+        }
+    }
+
+    private static void assertNoAllocation(String name, Runnable call) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && best > 0; round++) {
+            // Reading the counter can allocate itself; measure that and subtract it
+            long start = allocatedBytes();
+            long overhead = allocatedBytes() - start;
+            start = allocatedBytes();
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                call.run();
+            }
+            long end = allocatedBytes();
+            best = Math.min(best, Math.max(0, end - start - overhead));
+        }
+        assertEquals(0, best, name + ": bytes allocated over " + MEASURED_CALLS + " calls");
+    }
+
+    private static long allocatedBytes() {
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+}
\ No newline at end of file
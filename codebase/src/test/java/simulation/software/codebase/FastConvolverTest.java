@@ -0,0 +1,72 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FastConvolverTest {
+    private static final double TOLERANCE = 1e-12;
+
+    @Test
+    void convolveMatchesDirectConvolution() {
+        for (int taps : new int[]{1, 3, 17, 64, 300}) {
+            double[] signal = NaiveDFT.noise(1000, taps);
+            double[] kernel = NaiveDFT.noise(taps, -taps);
+            double[] expected = direct(signal, kernel);
+            double[] actual = FastConvolver.convolve(signal, kernel);
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], actual[i], TOLERANCE, taps + " taps, sample " + i);
+            }
+        }
+    }
+
+    // Both modes, fed blocks of uneven length, line up with the direct filter output
+    @Test
+    void streamingModesMatchDirectFilter() {
+        double[] signal = NaiveDFT.noise(5000, 1);
+        double[] kernel = NaiveDFT.noise(129, 2);
+        double[] expected = direct(signal, kernel);
+        int[] blocks = {1, 7, 500, 64, 1333, 2, 999};
+        for (FastConvolver.Mode mode : FastConvolver.Mode.values()) {
+            FastConvolver convolver = new FastConvolver(kernel, mode);
+            double[] output = new double[signal.length];
+            int position = 0;
+            for (int b = 0; position < signal.length; b++) {
+                int count = Math.min(blocks[b % blocks.length], signal.length - position);
+                convolver.process(signal, position, count, output, position);
+                position += count;
+            }
+            for (int i = 0; i < signal.length; i++) {
+                assertEquals(expected[i], output[i], TOLERANCE, mode + ", sample " + i);
+            }
+        }
+    }
+
+    @Test
+    void resetForgetsEarlierInput() {
+        double[] kernel = NaiveDFT.noise(40, 3);
+        double[] block = NaiveDFT.noise(200, 4);
+        for (FastConvolver.Mode mode : FastConvolver.Mode.values()) {
+            FastConvolver convolver = new FastConvolver(kernel, mode);
+            double[] first = convolver.process(block);
+            convolver.process(NaiveDFT.noise(300, 5));
+            convolver.reset();
+            double[] again = convolver.process(block);
+            for (int i = 0; i < block.length; i++) {
+                assertEquals(first[i], again[i], TOLERANCE, mode + ", sample " + i);
+            }
+        }
+    }
+
+    // Full linear convolution, length N + M - 1
+    private static double[] direct(double[] signal, double[] kernel) {
+        double[] output = new double[signal.length + kernel.length - 1];
+        for (int i = 0; i < signal.length; i++) {
+            for (int j = 0; j < kernel.length; j++) {
+                output[i + j] += signal[i] * kernel[j];
+            }
+        }
+        return output;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Single-precision plans against the naive DFT, at float accuracy
+class FloatFFTPlanTest {
+    private static final double TOLERANCE = 1e-5;
+
+    @Test
+    void transformMatchesNaiveDft() {
+        for (int n : new int[]{2, 4, 8, 16, 64, 512, 2048, 3, 6, 12, 30, 105, 360, 1000}) {
+            double[] real = NaiveDFT.noise(n, n);
+            double[] imag = NaiveDFT.noise(n, -n);
+            double[][] expected = NaiveDFT.transform(real, imag);
+            float[] floatReal = toFloat(real);
+            float[] floatImag = toFloat(imag);
+            FloatFFTPlan.forSize(n).transform(floatReal, floatImag);
+            double error = NaiveDFT.relativeError(expected[0], expected[1],
+                    toDouble(floatReal), toDouble(floatImag), n);
+            assertTrue(error < TOLERANCE, "size " + n + ": relative error " + error);
+        }
+    }
+
+    @Test
+    void realTransformMatchesNaiveDft() {
+        for (int n : new int[]{2, 4, 16, 256, 1024, 6, 30, 360}) {
+            double[] input = NaiveDFT.noise(n, n);
+            double[][] expected = NaiveDFT.transform(input, new double[n]);
+            float[] real = new float[n / 2 + 1];
+            float[] imag = new float[n / 2 + 1];
+            FloatFFTPlan.forSize(n).realTransform(toFloat(input), real, imag);
+            double error = NaiveDFT.relativeError(expected[0], expected[1], toDouble(real), toDouble(imag), n / 2 + 1);
+            assertTrue(error < TOLERANCE, "real transform size " + n + ": relative error " + error);
+        }
+    }
+
+    // FFTCalculator documents an error floor of roughly -135 dB re peak
+    @Test
+    void precisionReportShowsSinglePrecisionFloor() {
+        double[] input = new double[4096];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = Math.sin(2 * Math.PI * 0.1234 * i) + 0.01 * Math.sin(2 * Math.PI * 0.3 * i);
+        }
+        double floor = PrecisionReport.measure(input).getErrorFloorDb();
+        assertTrue(floor < -125, "error floor " + floor + " dB");
+    }
+
+    private static float[] toFloat(double[] values) {
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (float) values[i];
+        }
+        return result;
+    }
+
+    private static double[] toDouble(float[] values) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FractionalOctaveBandsTest {
+    // Bands tile the axis: every bin lying wholly between the first lower edge
+    // and the last upper edge hands all of its power to the bands, split by overlap
+    @Test
+    void bandsPreserveTotalPower() {
+        int binCount = 4096;
+        double binSpacing = 48000.0 / 8192;
+        for (int bandsPerOctave : new int[]{1, 3, 6, 12, 24}) {
+            FractionalOctaveBands bands = new FractionalOctaveBands(bandsPerOctave, 20, 20000, binCount, binSpacing);
+            int count = bands.getBandCount();
+            double low = bands.getLowerEdge(0);
+            double high = bands.getUpperEdge(count - 1);
+            double[] power = NaiveDFT.noise(binCount, bandsPerOctave);
+            double expected = 0;
+            for (int k = 0; k < binCount; k++) {
+                power[k] = Math.abs(power[k]);
+                double binLow = Math.max(0, (k - 0.5) * binSpacing);
+                double binHigh = (k + 0.5) * binSpacing;
+                double covered = Math.max(0, Math.min(binHigh, high) - Math.max(binLow, low)) / binSpacing;
+                expected += covered * power[k];
+            }
+            double[] result = new double[count];
+            bands.aggregatePower(power, result);
+            double total = Arrays.stream(result).sum();
+            assertEquals(expected, total, 1e-9 * expected, bandsPerOctave + " bands per octave");
+        }
+    }
+
+    @Test
+    void bandsAreContiguousWithConstantQ() {
+        FractionalOctaveBands bands = new FractionalOctaveBands(3, 25, 16000, 2048, 12);
+        boolean hasReference = false;
+        for (int b = 0; b < bands.getBandCount(); b++) {
+            double width = bands.getUpperEdge(b) - bands.getLowerEdge(b);
+            assertEquals(bands.getQ(), bands.getCenterFrequency(b) / width, 1e-9, "band " + b);
+            hasReference |= Math.abs(bands.getCenterFrequency(b) - 1000) < 1e-9;
+            if (b > 0) {
+                assertEquals(bands.getUpperEdge(b - 1), bands.getLowerEdge(b), 1e-9 * bands.getLowerEdge(b));
+            }
+        }
+        assertTrue(hasReference, "no band centred on 1 kHz");
+    }
+
+    // A tone in one bin reads back its magnitude in the band holding that bin
+    @Test
+    void binCentredToneKeepsItsMagnitude() {
+        double binSpacing = 10;
+        FractionalOctaveBands bands = new FractionalOctaveBands(3, 100, 10000, 2048, binSpacing);
+        double[] magnitude = new double[2048];
+        magnitude[100] = 3.5;
+        double[] result = new double[bands.getBandCount()];
+        bands.aggregateMagnitude(magnitude, result);
+        for (int b = 0; b < result.length; b++) {
+            boolean holdsTone = bands.getLowerEdge(b) <= 995 && bands.getUpperEdge(b) >= 1005;
+            assertEquals(holdsTone ? 3.5 : 0, result[b], 1e-12, "band " + b);
+        }
+    }
+
+    // Averaging a flat density returns the same level in every band
+    @Test
+    void flatDensityStaysFlat() {
+        FractionalOctaveBands bands = new FractionalOctaveBands(12, 20, 20000, 8192, 48000.0 / 16384);
+        double[] density = new double[8192];
+        Arrays.fill(density, 2e-6);
+        double[] result = new double[bands.getBandCount()];
+        bands.aggregateDensity(density, result);
+        assertTrue(result.length > 100);
+        for (int b = 0; b < result.length; b++) {
+            assertEquals(2e-6, result[b], 1e-18, "band " + b);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Goertzel bins against FFTPlan on the integer grid and a direct DFT sum off it.
+class GoertzelBankTest {
+    private static final double TOLERANCE = 1e-10;
+
+    // Complex values, not just magnitudes, so the phase alignment is checked too
+    @Test
+    void integerBinsMatchFFT() {
+        for (int n : new int[]{64, 1000, 4096}) {
+            double[] signal = NaiveDFT.noise(n, n);
+            assertMatchesFFT(signal, n, integerBins(n));
+        }
+    }
+
+    // A signal shorter than the bank runs the recurrence on over implicit zeros
+    @Test
+    void shortSignalIsZeroPadded() {
+        for (int n : new int[]{64, 1000, 4096}) {
+            double[] signal = NaiveDFT.noise(n / 3, n);
+            assertMatchesFFT(signal, n, integerBins(n));
+        }
+    }
+
+    // Bins off the grid against X(b) = sum x[i] * exp(-2*pi*j*b*i/N)
+    @Test
+    void fractionalBinsMatchDirectSum() {
+        int n = 1000;
+        double[] signal = NaiveDFT.noise(n, 11);
+        double[] bins = {0.5, 3.25, 99.9, 250.125, n / 2 - 0.3};
+        double[] real = new double[bins.length];
+        double[] imag = new double[bins.length];
+        new GoertzelBank(n, bins).evaluate(signal, real, imag);
+
+        double[] expectedReal = new double[bins.length];
+        double[] expectedImag = new double[bins.length];
+        for (int b = 0; b < bins.length; b++) {
+            for (int i = 0; i < n; i++) {
+                double angle = -2 * Math.PI * bins[b] * i / n;
+                expectedReal[b] += signal[i] * Math.cos(angle);
+                expectedImag[b] += signal[i] * Math.sin(angle);
+            }
+        }
+        double error = NaiveDFT.relativeError(expectedReal, expectedImag, real, imag, bins.length);
+        assertTrue(error < TOLERANCE, "relative error " + error);
+    }
+
+    // Direct evaluation wins while the bins number fewer than log2(N), which is
+    // the test TotalHarmonicDistortion applies to its harmonics plus three
+    @Test
+    void crossoverIsLog2OfLength() {
+        assertTrue(GoertzelBank.isCheaperThanFFT(4096, 11));
+        assertFalse(GoertzelBank.isCheaperThanFFT(4096, 12));
+        assertTrue(GoertzelBank.isCheaperThanFFT(1000, 8));
+        assertFalse(GoertzelBank.isCheaperThanFFT(1000, 9));
+        assertTrue(GoertzelBank.isCheaperThanFFT(2, 0));
+        assertFalse(GoertzelBank.isCheaperThanFFT(2, 1));
+        assertFalse(GoertzelBank.isCheaperThanFFT(1, 0));
+        // Five harmonics at 8192 samples take the Goertzel path, ten do not
+        assertTrue(GoertzelBank.isCheaperThanFFT(8192, 5 + 3));
+        assertFalse(GoertzelBank.isCheaperThanFFT(8192, 10 + 3));
+    }
+
+    // DC, the first bins, a mid-band bin and the top of the band up to Nyquist
+    private static double[] integerBins(int n) {
+        return new double[]{0, 1, 2, 7, n / 4, n / 2 - 1, n / 2};
+    }
+
+    private static void assertMatchesFFT(double[] signal, int n, double[] bins) {
+        double[] real = new double[bins.length];
+        double[] imag = new double[bins.length];
+        new GoertzelBank(n, bins).evaluate(signal, real, imag);
+
+        double[] fftReal = new double[n / 2 + 1];
+        double[] fftImag = new double[n / 2 + 1];
+        FFTPlan.forSize(n).realTransform(signal, fftReal, fftImag);
+        double[] expectedReal = new double[bins.length];
+        double[] expectedImag = new double[bins.length];
+        for (int b = 0; b < bins.length; b++) {
+            expectedReal[b] = fftReal[(int) bins[b]];
+            expectedImag[b] = fftImag[(int) bins[b]];
+        }
+        double error = NaiveDFT.relativeError(expectedReal, expectedImag, real, imag, bins.length);
+        assertTrue(error < TOLERANCE, "size " + n + ", signal " + signal.length + ": relative error " + error);
+    }
+}
\ No newline at end of file
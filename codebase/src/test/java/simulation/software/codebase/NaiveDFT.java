@@ -0,0 +1,55 @@
+package simulation.software.codebase;
+
+import java.util.Random;
+
+// O(N^2) reference transforms for the FFT tests. Twiddle angles are reduced
+// mod N in integer arithmetic before scaling, so the reference is accurate to
+// a few ulps per term regardless of N.
+final class NaiveDFT {
+    private NaiveDFT() {
+    }
+
+    // Forward DFT X[k] = sum x[n] * exp(-2*pi*i*k*n/N); returns {real, imag}
+    static double[][] transform(double[] real, double[] imag) {
+        int n = real.length;
+        double[] outReal = new double[n];
+        double[] outImag = new double[n];
+        for (int k = 0; k < n; k++) {
+            double sumReal = 0;
+            double sumImag = 0;
+            for (int j = 0; j < n; j++) {
+                double angle = -2 * Math.PI * (((long) k * j) % n) / n;
+                double c = Math.cos(angle);
+                double s = Math.sin(angle);
+                sumReal += real[j] * c - imag[j] * s;
+                sumImag += real[j] * s + imag[j] * c;
+            }
+            outReal[k] = sumReal;
+            outImag[k] = sumImag;
+        }
+        return new double[][]{outReal, outImag};
+    }
+
+    // Uniform noise in [-0.5, 0.5), reproducible per seed
+    static double[] noise(int length, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextDouble() - 0.5;
+        }
+        return values;
+    }
+
+    // Largest |actual - expected| over the first count entries of both arrays,
+    // relative to the largest |expected|
+    static double relativeError(double[] expectedReal, double[] expectedImag,
+                                double[] actualReal, double[] actualImag, int count) {
+        double error = 0;
+        double scale = 0;
+        for (int i = 0; i < count; i++) {
+            error = Math.max(error, Math.hypot(actualReal[i] - expectedReal[i], actualImag[i] - expectedImag[i]));
+            scale = Math.max(scale, Math.hypot(expectedReal[i], expectedImag[i]));
+        }
+        return scale > 0 ? error / scale : error;
+    }
+}
\ No newline at end of file
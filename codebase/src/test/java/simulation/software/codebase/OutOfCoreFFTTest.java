@@ -0,0 +1,113 @@
+package simulation.software.codebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The file-backed transform against the in-memory real FFT of the same
+// samples. Like OutOfCoreFFT itself this needs java.lang.foreign (JDK 22, or
+// JDK 21 with --enable-preview).
+class OutOfCoreFFTTest {
+    @TempDir
+    Path directory;
+
+    // Lengths that are not powers of 2 are zero-padded to the next one, as in
+    // memory; 2^23 + 123 pads to 2^24 and spans several mapped windows, column
+    // bands and an all-zero tail.
+    @Test
+    void transformMatchesInMemoryFFT() throws IOException {
+        for (int samples : new int[]{2, 3, 4, 1000, 1 << 16, (1 << 16) + 1, (1 << 23) + 123}) {
+            double[] input = NaiveDFT.noise(samples, samples);
+            Path inputFile = write(directory.resolve("input.bin"), input);
+            Path outputFile = directory.resolve("spectrum.bin");
+
+            int n = Integer.bitCount(samples) == 1 ? samples : Integer.highestOneBit(samples) << 1;
+            assertEquals(n, OutOfCoreFFT.transform(inputFile, outputFile));
+            double[] bins = read(outputFile);
+            assertEquals(n + 2, bins.length);
+
+            double[] real = new double[n / 2 + 1];
+            double[] imag = new double[n / 2 + 1];
+            FFTPlan.forSize(n).realTransform(Arrays.copyOf(input, n), real, imag);
+            double error = 0;
+            double scale = 0;
+            for (int k = 0; k <= n / 2; k++) {
+                error = Math.max(error, Math.hypot(bins[2 * k] - real[k], bins[2 * k + 1] - imag[k]));
+                scale = Math.max(scale, Math.hypot(real[k], imag[k]));
+            }
+            assertTrue(error <= 1e-12 * scale, n + " samples: relative error " + error / scale);
+            assertNoScratchFilesLeft();
+        }
+    }
+
+    // The 3000-sample capture gives the magnitudes of its zero-padded 4096-point transform
+    @Test
+    void magnitudeMatchesInMemoryFFT() throws IOException {
+        for (int samples : new int[]{1 << 20, 3000}) {
+            double[] input = NaiveDFT.noise(samples, 9);
+            Path inputFile = write(directory.resolve("input.bin"), input);
+            Path outputFile = directory.resolve("magnitude.bin");
+            int n = Integer.bitCount(samples) == 1 ? samples : Integer.highestOneBit(samples) << 1;
+            assertEquals(n, OutOfCoreFFT.magnitude(inputFile, outputFile));
+
+            double[] magnitude = read(outputFile);
+            double[] expected = new FFTCalculator().computeFFTMagnitude(Arrays.copyOf(input, n));
+            assertEquals(expected.length, magnitude.length);
+            for (int k = 0; k < expected.length; k++) {
+                assertEquals(expected[k], magnitude[k], 1e-12 * expected.length, "bin " + k);
+            }
+            assertNoScratchFilesLeft();
+        }
+    }
+
+    @Test
+    void captureTooShortIsNotTransformed() throws IOException {
+        Path inputFile = write(directory.resolve("input.bin"), new double[1]);
+        assertEquals(0, OutOfCoreFFT.transform(inputFile, directory.resolve("spectrum.bin")));
+        assertNoScratchFilesLeft();
+    }
+
+    private void assertNoScratchFilesLeft() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".scratch")));
+        }
+    }
+
+    // Raw native-order doubles, the capture format OutOfCoreFFT reads
+    private static Path write(Path file, double[] values) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.nativeOrder());
+            for (int i = 0; i < values.length; ) {
+                buffer.clear();
+                while (buffer.hasRemaining() && i < values.length) {
+                    buffer.putDouble(values[i++]);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+        return file;
+    }
+
+    private static double[] read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.nativeOrder());
+        double[] values = new double[buffer.remaining() / Double.BYTES];
+        buffer.asDoubleBuffer().get(values);
+        return values;
+    }
+}
\ No newline at end of file
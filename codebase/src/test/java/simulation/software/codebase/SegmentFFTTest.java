@@ -0,0 +1,101 @@
+package simulation.software.codebase;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// The off-heap magnitude spectrum against FFTCalculator on the same samples.
+// Like SegmentFFT itself this needs java.lang.foreign (JDK 22, or JDK 21 with
+// --enable-preview).
+class SegmentFFTTest {
+    // Below 8 samples SegmentFFT falls back to FFTCalculator
+    @Test
+    void smallSizesMatchCalculator() {
+        for (int n : new int[]{2, 4, 8}) {
+            try (Arena arena = Arena.ofShared()) {
+                assertMatchesCalculator(arena, n);
+            }
+        }
+    }
+
+    // Shared segments run the blocked passes in parallel; the odd power gives
+    // a non-square N1 x N2 split with rows longer than columns
+    @Test
+    void sharedSegmentsMatchCalculator() {
+        for (int n : new int[]{16, 64, 1 << 13, 1 << 16, 1 << 19}) {
+            try (Arena arena = Arena.ofShared()) {
+                assertMatchesCalculator(arena, n);
+            }
+        }
+    }
+
+    // Confined segments keep every block on the calling thread
+    @Test
+    void confinedSegmentsMatchCalculator() {
+        for (int n : new int[]{16, 1 << 12, 1 << 17}) {
+            try (Arena arena = Arena.ofConfined()) {
+                assertMatchesCalculator(arena, n);
+            }
+        }
+    }
+
+    // The heap holds only O(sqrt N) buffers, so the bytes allocated by a
+    // confined (single-threaded) transform stay far below the capture size
+    @Test
+    void heapAllocationDoesNotGrowWithCapture() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "Per-thread allocation counting not available");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Per-thread allocation counting not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        int n = 1 << 21;
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment input = arena.allocate((long) n * Double.BYTES, Double.BYTES);
+            MemorySegment magnitude = arena.allocate((long) n / 2 * Double.BYTES, Double.BYTES);
+            MemorySegment.copy(NaiveDFT.noise(n, 3), 0, input, ValueLayout.JAVA_DOUBLE, 0, n);
+            SegmentFFT.magnitude(input, magnitude, n);
+
+            long thread = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(thread);
+            SegmentFFT.magnitude(input, magnitude, n);
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            assertTrue(allocated < (long) n * Double.BYTES / 16, allocated + " bytes on the heap");
+        }
+    }
+
+    @Test
+    void rejectsSizesThatAreNotPowersOfTwo() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment input = arena.allocate(12 * Double.BYTES, Double.BYTES);
+            MemorySegment magnitude = arena.allocate(6 * Double.BYTES, Double.BYTES);
+            assertThrows(IllegalArgumentException.class, () -> SegmentFFT.magnitude(input, magnitude, 12));
+            assertThrows(IllegalArgumentException.class, () -> SegmentFFT.magnitude(input, magnitude, 16));
+        }
+    }
+
+    private static void assertMatchesCalculator(Arena arena, int n) {
+        double[] samples = NaiveDFT.noise(n, n);
+        MemorySegment input = arena.allocate((long) n * Double.BYTES, Double.BYTES);
+        MemorySegment magnitude = arena.allocate((long) n / 2 * Double.BYTES, Double.BYTES);
+        MemorySegment.copy(samples, 0, input, ValueLayout.JAVA_DOUBLE, 0, n);
+
+        SegmentFFT.magnitude(input, magnitude, n);
+
+        double[] expected = new FFTCalculator().computeFFTMagnitude(samples);
+        double[] actual = magnitude.toArray(ValueLayout.JAVA_DOUBLE);
+        double scale = 0;
+        for (double value : expected) {
+            scale = Math.max(scale, value);
+        }
+        assertArrayEquals(expected, actual, 1e-12 * scale, n + " samples");
+    }
+}
\ No newline at end of file
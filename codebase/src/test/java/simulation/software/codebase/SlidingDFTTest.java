@@ -0,0 +1,104 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The recursively updated bins against an FFT of the last windowSize samples.
+class SlidingDFTTest {
+    private static final double TOLERANCE = 1e-10;
+
+    // Five windows through the recurrence alone, with resync pushed out of reach
+    @Test
+    void recurrenceMatchesFFTWithoutResync() {
+        for (int windowSize : new int[]{64, 100}) {
+            SlidingDFT dft = new SlidingDFT(windowSize, 48000, Integer.MAX_VALUE);
+            double[] stream = NaiveDFT.noise(5 * windowSize + 17, windowSize);
+            for (double sample : stream) {
+                dft.push(sample);
+            }
+            assertMatchesLastWindow(dft, stream, stream.length);
+        }
+    }
+
+    // A resync interval that does not divide the stream, so the last resync
+    // falls mid-window and the recurrence carries on from the FFT's bins
+    @Test
+    void recurrenceMatchesFFTAcrossResyncs() {
+        for (int resyncInterval : new int[]{7, 64}) {
+            SlidingDFT dft = new SlidingDFT(64, 48000, resyncInterval);
+            double[] stream = NaiveDFT.noise(1000, resyncInterval);
+            for (int i = 0; i < stream.length; i++) {
+                dft.push(stream[i]);
+                if (i % 97 == 96) {
+                    assertMatchesLastWindow(dft, stream, i + 1);
+                }
+            }
+            assertMatchesLastWindow(dft, stream, stream.length);
+        }
+    }
+
+    // A block of at least a window replaces the window outright; shorter
+    // blocks slide sample by sample from where it left off
+    @Test
+    void bulkPushMatchesFFT() {
+        SlidingDFT dft = new SlidingDFT(128, 48000, Integer.MAX_VALUE);
+        double[] stream = NaiveDFT.noise(1000, 3);
+        dft.push(stream, 0, 10);
+        dft.push(stream, 10, 300);
+        assertMatchesLastWindow(dft, stream, 310);
+        dft.push(stream, 310, 128);
+        assertMatchesLastWindow(dft, stream, 438);
+        dft.push(stream, 438, 50);
+        assertMatchesLastWindow(dft, stream, 488);
+        dft.push(stream, 488, 512);
+        assertMatchesLastWindow(dft, stream, stream.length);
+    }
+
+    // Until a full window has arrived the missing samples count as zeros
+    @Test
+    void partialWindowIsZeroPadded() {
+        SlidingDFT dft = new SlidingDFT(64, 48000);
+        double[] stream = NaiveDFT.noise(20, 4);
+        dft.push(stream);
+        assertMatchesLastWindow(dft, stream, stream.length);
+
+        dft.reset();
+        Spectrum spectrum = dft.getSpectrum();
+        for (int k = 0; k < spectrum.getBinCount(); k++) {
+            assertEquals(0, spectrum.getReal(k));
+            assertEquals(0, spectrum.getImag(k));
+        }
+    }
+
+    @Test
+    void binsAreSpacedBySampleRateOverWindow() {
+        Spectrum spectrum = new SlidingDFT(100, 48000).getSpectrum();
+        assertEquals(50, spectrum.getBinCount());
+        assertEquals(480, spectrum.getBinSpacing());
+    }
+
+    // Bins of the windowSize samples ending at end, with zeros before the stream starts
+    private static void assertMatchesLastWindow(SlidingDFT dft, double[] stream, int end) {
+        int n = dft.getWindowSize();
+        double[] window = new double[n];
+        for (int i = 0; i < n; i++) {
+            int index = end - n + i;
+            window[i] = index >= 0 ? stream[index] : 0;
+        }
+        double[] real = new double[n / 2 + 1];
+        double[] imag = new double[n / 2 + 1];
+        FFTPlan.forSize(n).realTransform(window, real, imag);
+
+        Spectrum spectrum = dft.getSpectrum();
+        double[] actualReal = new double[n / 2];
+        double[] actualImag = new double[n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            actualReal[k] = spectrum.getReal(k);
+            actualImag[k] = spectrum.getImag(k);
+        }
+        double error = NaiveDFT.relativeError(real, imag, actualReal, actualImag, n / 2);
+        assertTrue(error < TOLERANCE, "window ending at " + end + ": relative error " + error);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpectralPeakTest {
+    private static final double SAMPLE_RATE = 48000;
+    private static final int N = 1024;
+
+    // Tones swept across a bin: frequency within a small fraction of a bin and
+    // amplitude within a fraction of a percent
+    @Test
+    void estimatorsRecoverToneFrequencyAndAmplitude() {
+        FFTCalculator calculator = new FFTCalculator();
+        double spacing = SAMPLE_RATE / N;
+        double amplitude = 0.8;
+        for (int t = 0; t < 40; t++) {
+            double frequency = 1000 + t * spacing / 37.0;
+            double[] x = new double[N];
+            for (int i = 0; i < N; i++) {
+                x[i] = amplitude * Math.cos(2 * Math.PI * frequency * i / SAMPLE_RATE + 0.7 * t);
+            }
+            Spectrum plain = calculator.computeSpectrum(x, SAMPLE_RATE);
+            Spectrum hann = calculator.computeSpectrum(x, SAMPLE_RATE, WindowFunction.Type.HANN);
+            double expected = amplitude * N / 2;
+
+            SpectralPeak quinn = SpectralPeak.estimate(plain, plain.getPeakIndex(), SpectralPeak.Method.QUINN);
+            assertEquals(frequency, quinn.getFrequency(), 0.01 * spacing);
+            assertEquals(expected, quinn.getMagnitude(), 0.005 * expected);
+
+            SpectralPeak jain = SpectralPeak.estimate(plain, plain.getPeakIndex(), SpectralPeak.Method.JAIN);
+            assertEquals(frequency, jain.getFrequency(), 0.05 * spacing);
+            assertEquals(expected, jain.getMagnitude(), 0.005 * expected);
+
+            SpectralPeak parabolic = SpectralPeak.estimate(hann, hann.getPeakIndex(), SpectralPeak.Method.PARABOLIC);
+            assertEquals(frequency, parabolic.getFrequency(), 0.02 * spacing);
+            assertEquals(expected, parabolic.getMagnitude(), 0.05 * expected);
+        }
+    }
+
+    // On noise, or at bins that are not maxima, every method stays within half a
+    // bin, the scalloping correction stays below pi/2, and the parabolic fit
+    // leaves bins that are not maxima unrefined
+    @Test
+    void offsetsStayWithinHalfABin() {
+        Spectrum noise = new FFTCalculator().computeSpectrum(NaiveDFT.noise(N, 21), SAMPLE_RATE);
+        double[] magnitude = noise.getMagnitude();
+        for (SpectralPeak.Method method : SpectralPeak.Method.values()) {
+            for (int bin = 1; bin < noise.getBinCount() - 1; bin++) {
+                SpectralPeak peak = SpectralPeak.estimate(noise, bin, method);
+                String name = method + " at bin " + bin;
+                assertTrue(Math.abs(peak.getBin() - bin) <= 0.5, name + ": offset " + (peak.getBin() - bin));
+                assertTrue(Double.isFinite(peak.getMagnitude()), name);
+                if (method != SpectralPeak.Method.PARABOLIC) {
+                    assertTrue(peak.getMagnitude() <= magnitude[bin] * Math.PI / 2 * (1 + 1e-12),
+                            name + ": magnitude " + peak.getMagnitude() + " from " + magnitude[bin]);
+                }
+                boolean maximum = magnitude[bin] >= magnitude[bin - 1] && magnitude[bin] >= magnitude[bin + 1];
+                if (!maximum && method == SpectralPeak.Method.PARABOLIC) {
+                    assertEquals(bin, peak.getBin(), name);
+                    assertEquals(magnitude[bin], peak.getMagnitude(), name);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
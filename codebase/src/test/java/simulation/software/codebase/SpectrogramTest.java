@@ -0,0 +1,64 @@
+package simulation.software.codebase;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpectrogramTest {
+    // Streaming the signal in uneven blocks yields the same frames, in the same
+    // ring order and with the same start times, as analyzing it in one go;
+    // hops shorter than, equal to and longer than a frame
+    @Test
+    void streamingMatchesOfflineAnalysis() {
+        double[] signal = NaiveDFT.noise(20000, 11);
+        int[][] configurations = {{256, 64}, {256, 256}, {256, 300}, {100, 33}};
+        int[] blocks = {1, 255, 17, 1024, 3, 700};
+        for (int[] configuration : configurations) {
+            int frameLength = configuration[0];
+            int hop = configuration[1];
+            Spectrogram offline = new Spectrogram(frameLength, hop, 40, 8000);
+            Spectrogram streaming = new Spectrogram(frameLength, hop, 40, 8000);
+            int total = offline.analyze(signal);
+
+            int emitted = 0;
+            for (int position = 0, b = 0; position < signal.length; b++) {
+                int count = Math.min(blocks[b % blocks.length], signal.length - position);
+                emitted += streaming.push(signal, position, count);
+                position += count;
+            }
+
+            String name = "frame " + frameLength + ", hop " + hop;
+            assertEquals(total, emitted, name);
+            assertEquals(offline.getTotalFrames(), streaming.getTotalFrames(), name);
+            assertEquals(offline.getFrameCount(), streaming.getFrameCount(), name);
+            for (int i = 0; i < offline.getFrameCount(); i++) {
+                assertEquals(offline.getFrameTime(i), streaming.getFrameTime(i), 0, name + ", frame " + i);
+                assertArrayEquals(offline.getFrame(i), streaming.getFrame(i), 1e-12, name + ", frame " + i);
+            }
+        }
+    }
+
+    // Each frame is the coherent-gain corrected windowed spectrum FFTCalculator gives
+    @Test
+    void framesMatchWindowedSpectrum() {
+        double sampleRate = 8000;
+        double[] signal = new double[4096];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = 0.5 * Math.sin(2 * Math.PI * 1000 * i / sampleRate) + 0.1 * Math.sin(0.37 * i);
+        }
+        Spectrogram spectrogram = new Spectrogram(512, 128, 8, sampleRate, WindowFunction.Type.BLACKMAN_HARRIS);
+        int total = spectrogram.analyze(signal);
+        FFTCalculator calculator = new FFTCalculator();
+        for (int i = 0; i < spectrogram.getFrameCount(); i++) {
+            int start = (int) Math.round(spectrogram.getFrameTime(i) * sampleRate);
+            assertEquals((total - spectrogram.getFrameCount() + i) * 128, start);
+            double[] frame = Arrays.copyOfRange(signal, start, start + 512);
+            double[] expected = calculator.computeSpectrum(frame, sampleRate, WindowFunction.Type.BLACKMAN_HARRIS)
+                    .getMagnitude();
+            assertArrayEquals(expected, spectrogram.getFrame(i), 1e-9, "frame " + i);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package simulation.software.codebase;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WelchPSDTest {
+    // Parseval: the density integrated over frequency is the signal's mean power
+    @Test
+    void integratedDensityMatchesNoiseVariance() {
+        double sampleRate = 8000;
+        double[] signal = NaiveDFT.noise(1 << 18, 3);
+        WelchPSD welch = new WelchPSD(1024, 0.5, 1000, sampleRate);
+        double[] psd = welch.estimate(signal);
+        assertEquals(1.0 / 12, integrate(psd, welch.getBinSpacing()), 0.01 / 12);
+    }
+
+    @Test
+    void integratedDensityMatchesSinePower() {
+        double sampleRate = 48000;
+        double amplitude = 0.8;
+        double[] signal = new double[1 << 16];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = amplitude * Math.sin(2 * Math.PI * 1234.5 * i / sampleRate + 0.3);
+        }
+        for (WindowFunction.Type type : WindowFunction.Type.values()) {
+            WelchPSD welch = new WelchPSD(2048, 0.5, 1000, sampleRate, type);
+            double[] psd = welch.estimate(signal);
+            assertEquals(amplitude * amplitude / 2, integrate(psd, welch.getBinSpacing()), 0.005, type.name());
+        }
+    }
+
+    // A streaming update over one block averages the same segments as estimate()
+    @Test
+    void streamingMatchesOfflineEstimate() {
+        double[] block = NaiveDFT.noise(20000, 5);
+        WelchPSD welch = new WelchPSD(512, 0.75, 16, 1000);
+        int added = welch.update(block);
+        assertEquals(Math.min(16, welch.segmentCount(block.length)), added);
+        assertArrayEquals(welch.estimate(block), welch.getPSD(), 1e-15);
+    }
+
+    // The moving average keeps only the newest averagingCount segments
+    @Test
+    void streamingAverageForgetsOldSegments() {
+        WelchPSD welch = new WelchPSD(256, 0, 4, 1000);
+        for (int i = 0; i < 10; i++) {
+            welch.update(NaiveDFT.noise(512, i));
+        }
+        double[] recent = new double[1024];
+        System.arraycopy(NaiveDFT.noise(512, 8), 0, recent, 0, 512);
+        System.arraycopy(NaiveDFT.noise(512, 9), 0, recent, 512, 512);
+        assertEquals(4, welch.getAveragedSegments());
+        assertArrayEquals(welch.estimate(recent), welch.getPSD(), 1e-12);
+    }
+
+    private static double integrate(double[] psd, double binSpacing) {
+        double sum = 0;
+        for (double value : psd) {
+            sum += value;
+        }
+        return sum * binSpacing;
+    }
+}
\ No newline at end of file